@@ -1,20 +1,42 @@
 package agh.darwinworld;
 
 import agh.darwinworld.models.*;
+import agh.darwinworld.models.listeners.SimulationInstrumentation;
 import agh.darwinworld.models.listeners.SimulationStepListener;
 import agh.darwinworld.models.maps.AbstractMap;
 import agh.darwinworld.presenters.SimulationPresenter;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
 /**
  * The {@code Simulation} class represents a runnable simulation of a Darwinian world.
  * It manages the lifecycle of the simulation and interacts with the map and its elements.
+ * The loop of {@link #run()} is paced according to the {@link SimulationMode}. While
+ * the simulation is stopped or waits for the next step, its thread is parked on a
+ * condition and is woken up by {@link #start()}, {@link #stop()} and mode changes.
+ * Steps are executed either by the loop or by {@link #step()}, never by both at once.
+ * Other threads, e.g. the UI, access animals of the map between steps through
+ * {@link #readMap(Function)} and {@link #runBetweenSteps(Runnable)}.
  */
 public class Simulation implements Runnable {
     private final SimulationParameters params;
     private final AbstractMap map;
 
-    private int step = 1;
-    private boolean isRunning = false;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition stateChanged = lock.newCondition();
+
+    private final AtomicBoolean stepping = new AtomicBoolean(false);
+    private final ReentrantLock mapLock = new ReentrantLock();
+    private volatile int step = 1;
+    private volatile boolean isRunning = false;
+    private SimulationMode mode = SimulationMode.FIXED_RATE;
+    private SimulationMode modeAfterBatch = SimulationMode.FIXED_RATE;
+    private int remainingBatchSteps = 0;
+    private volatile SimulationInstrumentation instrumentation = SimulationInstrumentation.NONE;
 
     /**
      * Constructs a {@code Simulation} with the specified parameters.
@@ -38,38 +60,271 @@ public class Simulation implements Runnable {
         return this.params;
     }
 
+    /**
+     * Runs the simulation loop until the thread is interrupted. In the fixed-rate mode
+     * the next step is due {@code refreshTime} milliseconds after the previous one was due,
+     * so the duration of steps does not slow the simulation down. If the simulation falls
+     * behind by more than a period, the schedule is restarted instead of catching up.
+     *
+     * @throws IllegalStateException if the loop is already running or a step is executed by {@link #step()}.
+     */
     @Override
     public void run() {
-        while (true) {
-            if (isRunning) {
-                long deltaTime = System.currentTimeMillis();
-                map.step(step);
-                long elapsed = System.currentTimeMillis() - deltaTime;
-                System.out.println("Step " + step + " took " + elapsed + "ms");
-                step++;
+        acquireStepping();
+        long nextStepAt = System.nanoTime();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                if (awaitRunning()) nextStepAt = System.nanoTime();
+                long startedAt = System.nanoTime();
+                executeStep();
+                long finishedAt = System.nanoTime();
+                instrumentation.stepExecuted(step - 1, finishedAt - startedAt);
+                nextStepAt = afterStep(nextStepAt, finishedAt);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stepping.set(false);
+        }
+    }
+
+    /**
+     * Parks the thread until the simulation is running.
+     *
+     * @return true if the simulation was stopped before, false otherwise.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    private boolean awaitRunning() throws InterruptedException {
+        lock.lock();
+        try {
+            boolean waited = false;
+            while (!isRunning) {
+                stateChanged.await();
+                waited = true;
             }
-            try {
-                //noinspection BusyWait
-                Thread.sleep(this.params.refreshTime());
-            } catch (InterruptedException e) {
-                System.out.println("Stopping simulation loop's sleep!");
-                return;
+            return waited;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ends the batch after its last step, or parks the thread until the next step
+     * is due in the fixed-rate mode.
+     *
+     * @param stepDueAt  the time the executed step was due, from {@link System#nanoTime()}.
+     * @param finishedAt the time the executed step finished, from {@link System#nanoTime()}.
+     * @return the time the next step is due.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    private long afterStep(long stepDueAt, long finishedAt) throws InterruptedException {
+        lock.lock();
+        try {
+            if (mode == SimulationMode.BATCH && --remainingBatchSteps <= 0) {
+                mode = modeAfterBatch;
+                isRunning = false;
+                stateChanged.signalAll();
+            }
+            long period = TimeUnit.MILLISECONDS.toNanos(params.refreshTime());
+            if (mode != SimulationMode.FIXED_RATE || finishedAt - stepDueAt > period) return finishedAt;
+            long nextStepAt = stepDueAt + period;
+            long remaining;
+            while (isRunning && mode == SimulationMode.FIXED_RATE && (remaining = nextStepAt - System.nanoTime()) > 0) {
+                stateChanged.awaitNanos(remaining);
             }
+            return nextStepAt;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Executes the next step of the simulation on the calling thread. It is valid only
+     * while the loop of {@link #run()} is not running, e.g. in headless runs.
+     *
+     * @throws IllegalStateException if the loop is running or another step is being executed.
+     */
+    public void step() {
+        acquireStepping();
+        try {
+            executeStep();
+        } finally {
+            stepping.set(false);
+        }
+    }
+
+    /**
+     * Marks the calling thread as the only one executing steps.
+     *
+     * @throws IllegalStateException if steps are already executed by another caller.
+     */
+    private void acquireStepping() {
+        if (!stepping.compareAndSet(false, true))
+            throw new IllegalStateException("Steps are already executed by the simulation loop!");
+    }
+
+    /**
+     * Executes the next step of the map and advances the step counter.
+     */
+    private void executeStep() {
+        mapLock.lock();
+        try {
+            map.step(step);
+            step++;
+        } finally {
+            mapLock.unlock();
+        }
+    }
+
+    /**
+     * Reads the map on the calling thread while no step is executed. Views of animals
+     * have to be created and read this way while the simulation runs on another thread,
+     * as steps move animals between cells and reuse their slots.
+     *
+     * @param reader the function reading the map.
+     * @param <T>    the type of the read value.
+     * @return the value returned by the reader.
+     */
+    public <T> T readMap(Function<AbstractMap, T> reader) {
+        mapLock.lock();
+        try {
+            return reader.apply(map);
+        } finally {
+            mapLock.unlock();
+        }
+    }
+
+    /**
+     * Runs the action on the calling thread while no step is executed, e.g. to subscribe
+     * to an animal selected in the UI.
+     *
+     * @param action the action to run.
+     */
+    public void runBetweenSteps(Runnable action) {
+        mapLock.lock();
+        try {
+            action.run();
+        } finally {
+            mapLock.unlock();
         }
     }
 
+    /**
+     * Returns the number of the next step of the simulation.
+     *
+     * @return the number of the next step
+     */
+    public int getStep() {
+        return step;
+    }
+
     /**
      * Starts the simulation.
      */
     public void start() {
-        isRunning = true;
+        setRunning(true);
     }
 
     /**
      * Stops the simulation.
      */
     public void stop() {
-        isRunning = false;
+        setRunning(false);
+    }
+
+    /**
+     * Starts the simulation in the batch mode. The given amount of steps is executed
+     * as fast as possible, then the simulation stops and returns to the previous mode.
+     *
+     * @param steps the amount of steps to execute.
+     * @throws IllegalArgumentException if steps < 1.
+     */
+    public void startBatch(int steps) {
+        if (steps < 1)
+            throw new IllegalArgumentException("Steps must be greater than 0!");
+        lock.lock();
+        try {
+            if (mode != SimulationMode.BATCH) modeAfterBatch = mode;
+            mode = SimulationMode.BATCH;
+            remainingBatchSteps = steps;
+            isRunning = true;
+            stateChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Parks the calling thread until the simulation is stopped, e.g. at the end of a batch.
+     *
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    public void awaitStopped() throws InterruptedException {
+        lock.lock();
+        try {
+            while (isRunning) {
+                stateChanged.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets the way of pacing the simulation. It takes effect immediately, also while
+     * the simulation waits for its next step. A running batch is cancelled.
+     *
+     * @param mode the pacing of the simulation.
+     * @throws IllegalArgumentException if mode is {@link SimulationMode#BATCH}, use {@link #startBatch(int)} instead.
+     */
+    public void setMode(SimulationMode mode) {
+        if (mode == SimulationMode.BATCH)
+            throw new IllegalArgumentException("Batch mode has to be started with the amount of steps!");
+        lock.lock();
+        try {
+            this.mode = mode;
+            stateChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the way of pacing the simulation.
+     *
+     * @return the pacing of the simulation
+     */
+    public SimulationMode getMode() {
+        lock.lock();
+        try {
+            return mode;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets the instrumentation receiving timings of steps.
+     *
+     * @param instrumentation the instrumentation, or null to ignore timings.
+     */
+    public void setInstrumentation(SimulationInstrumentation instrumentation) {
+        this.instrumentation = instrumentation == null ? SimulationInstrumentation.NONE : instrumentation;
+    }
+
+    /**
+     * Changes the state of the simulation and wakes up its thread.
+     *
+     * @param running true if the simulation should run, false otherwise.
+     */
+    private void setRunning(boolean running) {
+        lock.lock();
+        try {
+            isRunning = running;
+            stateChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
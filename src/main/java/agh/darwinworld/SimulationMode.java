@@ -0,0 +1,22 @@
+package agh.darwinworld;
+
+/**
+ * All possible ways of pacing a running simulation.
+ */
+public enum SimulationMode {
+    /**
+     * Steps start every {@code refreshTime} milliseconds, the duration of a step
+     * is included in the period.
+     */
+    FIXED_RATE,
+
+    /**
+     * Steps are executed one after another, without waiting.
+     */
+    MAX_SPEED,
+
+    /**
+     * The requested amount of steps is executed without waiting, then the simulation stops.
+     */
+    BATCH
+}
@@ -74,6 +74,7 @@ public class CellRegion extends Region {
     private boolean hasPlant;
     private int fireStageAmount;
     private int currentFireStage;
+    private int fireEnd;
 
     /**
      * Constructs a CellRegion with the given parameters.
@@ -190,6 +191,28 @@ public class CellRegion extends Region {
         updateBackground();
     }
 
+    /**
+     * Sets the step in which the fire in the cell is extinguished.
+     *
+     * @param fireEnd the step of extinguishing, not greater than the current step if there is no fire.
+     * @param step    the current simulation step.
+     */
+    public void setFireEnd(int fireEnd, int step) {
+        this.fireEnd = fireEnd;
+        updateFireStage(step);
+    }
+
+    /**
+     * Sets the current fire stage of the cell from the remaining length of its fire.
+     *
+     * @param step the current simulation step.
+     * @return true if the cell still burns, false otherwise.
+     */
+    public boolean updateFireStage(int step) {
+        setCurrentFireStage(Math.max(fireEnd - step, 0));
+        return currentFireStage > 0;
+    }
+
     public void updateIndicator(boolean isPopularGenome) {
         if (isPopularGenome) {
             indicator.setBackground(new Background(new BackgroundFill(POPULAR_GENOME_COLOR, null, null)));
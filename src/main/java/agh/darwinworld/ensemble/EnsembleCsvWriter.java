@@ -0,0 +1,68 @@
+package agh.darwinworld.ensemble;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * Writes statistics of an ensemble to CSV, one row per step and metric.
+ * Every step is flushed as soon as it is received.
+ */
+public class EnsembleCsvWriter implements EnsembleSink {
+    private final Writer writer;
+    private boolean headerWritten = false;
+
+    /**
+     * Creates a sink writing to the given writer. The writer is not closed by the sink.
+     *
+     * @param writer the writer of the CSV content.
+     */
+    public EnsembleCsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void acceptStep(EnsembleStep step) {
+        try {
+            if (!headerWritten) {
+                writeHeader(step.getStatistics(EnsembleMetric.ANIMAL_COUNT));
+                headerWritten = true;
+            }
+            for (EnsembleMetric metric : EnsembleMetric.values()) {
+                RunningStatistics statistics = step.getStatistics(metric);
+                StringBuilder row = new StringBuilder();
+                row.append(step.getStep()).append(',').append(metric).append(',').append(statistics.getCount())
+                        .append(',').append(format(statistics.getMean()))
+                        .append(',').append(format(statistics.getVariance()))
+                        .append(',').append(format(statistics.getMin()))
+                        .append(',').append(format(statistics.getMax()));
+                for (int i = 0; i < statistics.getQuantileCount(); i++) {
+                    row.append(',').append(format(statistics.getQuantile(i)));
+                }
+                writer.write(row.append('\n').toString());
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new RuntimeException("Error while writing ensemble statistics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes names of the columns, with a column for every estimated quantile.
+     */
+    private void writeHeader(RunningStatistics statistics) throws IOException {
+        StringBuilder header = new StringBuilder("step,metric,count,mean,variance,min,max");
+        for (int i = 0; i < statistics.getQuantileCount(); i++) {
+            header.append(",p").append(format(statistics.getQuantileProbability(i) * 100));
+        }
+        writer.write(header.append('\n').toString());
+    }
+
+    /**
+     * Formats the number without trailing zeros, independently of the default locale.
+     */
+    private static String format(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value)) return Long.toString((long) value);
+        return String.format(Locale.ROOT, "%.4f", value);
+    }
+}
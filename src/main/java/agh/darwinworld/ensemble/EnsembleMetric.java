@@ -0,0 +1,49 @@
+package agh.darwinworld.ensemble;
+
+import agh.darwinworld.models.maps.AbstractMap;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * Statistics of a map aggregated across runs of an ensemble.
+ */
+public enum EnsembleMetric {
+    ANIMAL_COUNT("animalCount", AbstractMap::animalCount),
+    PLANT_COUNT("plantCount", AbstractMap::plantCount),
+    EMPTY_FIELD_COUNT("emptyFieldCount", AbstractMap::emptyFieldCount),
+    AVERAGE_LIFETIME("averageLifetime", AbstractMap::averageLifetime),
+    AVERAGE_DESCENDANTS_AMOUNT("averageDescendantsAmount", AbstractMap::averageDescendantsAmount),
+    AVERAGE_ENERGY("averageEnergy", AbstractMap::averageEnergy);
+
+    /**
+     * To string label of the enum, the same as the column of {@link agh.darwinworld.models.CsvPrinter}.
+     */
+    private final String label;
+    private final ToIntFunction<AbstractMap> extractor;
+
+    /**
+     * Constructs a metric with a specific label.
+     *
+     * @param label     the label associated with the metric.
+     * @param extractor the function reading the metric from a map.
+     */
+    EnsembleMetric(String label, ToIntFunction<AbstractMap> extractor) {
+        this.label = label;
+        this.extractor = extractor;
+    }
+
+    /**
+     * Reads the current value of the metric.
+     *
+     * @param map the map of the simulation.
+     * @return the value of the metric.
+     */
+    public int valueOf(AbstractMap map) {
+        return extractor.applyAsInt(map);
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
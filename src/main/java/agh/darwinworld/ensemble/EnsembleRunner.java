@@ -0,0 +1,295 @@
+package agh.darwinworld.ensemble;
+
+import agh.darwinworld.Simulation;
+import agh.darwinworld.models.SimulationParameters;
+import agh.darwinworld.models.maps.AbstractMap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs the same simulation with a range of seeds on a bounded amount of worker threads,
+ * without any user interface. Workers pull seeds from a shared queue: an idle worker takes
+ * the next seed which may advance, executes its next step and puts it back at the end of
+ * the queue, so all workers stay busy as long as any seed can advance. Values of all
+ * {@link EnsembleMetric metrics} are aggregated across seeds for every step and passed to
+ * a sink as soon as every seed has finished the step, after which the step is freed.
+ * <p>
+ * A seed may run at most {@link #setWindow(int) window} steps ahead of the oldest step not
+ * passed to the sink yet, so buffered values of steps are bounded by the window. As a step
+ * is complete only when every seed has executed it, simulations of all seeds are alive
+ * until they execute their last step.
+ * <p>
+ * Values of a step are added to the statistics in the order of seeds, whichever worker
+ * finishes first, so {@link P2Quantile quantile estimates} are the same in every execution.
+ */
+public class EnsembleRunner {
+    /**
+     * Probabilities of quantiles estimated by default: the first decile, the median and the last decile.
+     */
+    public static final double[] DEFAULT_QUANTILES = {0.1, 0.5, 0.9};
+
+    /**
+     * Amount of steps a seed may run ahead of the oldest step not passed to the sink by default.
+     */
+    public static final int DEFAULT_WINDOW = 16;
+
+    private static final EnsembleMetric[] METRICS = EnsembleMetric.values();
+
+    private final SimulationParameters params;
+    private final int firstSeed;
+    private final int seedCount;
+    private final int steps;
+    private final int workers;
+    private final double[] quantiles;
+    private int window = DEFAULT_WINDOW;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition seedReady = lock.newCondition();
+    private ArrayDeque<SeedRun> readySeeds;
+    private List<SeedRun> waitingSeeds;
+    private int[][] bufferedValues;
+    private int[] recordedSeeds;
+    private int nextEmittedStep;
+    private Throwable failure;
+
+    /**
+     * Creates a runner estimating the default quantiles.
+     *
+     * @param params    the parameters of the simulation, the seed is replaced by seeds of the range.
+     * @param firstSeed the first seed of the range.
+     * @param seedCount the amount of seeds, and so runs.
+     * @param steps     the amount of steps of every run.
+     * @param workers   the maximal amount of runs executed at the same time.
+     * @throws IllegalArgumentException if seedCount < 1, steps < 0 or workers < 1.
+     */
+    public EnsembleRunner(SimulationParameters params, int firstSeed, int seedCount, int steps, int workers) {
+        this(params, firstSeed, seedCount, steps, workers, DEFAULT_QUANTILES);
+    }
+
+    /**
+     * Creates a runner.
+     *
+     * @param params    the parameters of the simulation, the seed is replaced by seeds of the range.
+     * @param firstSeed the first seed of the range.
+     * @param seedCount the amount of seeds, and so runs.
+     * @param steps     the amount of steps of every run.
+     * @param workers   the maximal amount of runs executed at the same time.
+     * @param quantiles probabilities of the estimated quantiles.
+     * @throws IllegalArgumentException if seedCount < 1, steps < 0 or workers < 1.
+     */
+    public EnsembleRunner(SimulationParameters params, int firstSeed, int seedCount, int steps, int workers,
+                          double... quantiles) {
+        if (seedCount < 1)
+            throw new IllegalArgumentException("Seed count must be greater than 0!");
+        if (steps < 0)
+            throw new IllegalArgumentException("Steps must be greater than or equal to 0!");
+        if (workers < 1)
+            throw new IllegalArgumentException("Workers must be greater than 0!");
+        this.params = params;
+        this.firstSeed = firstSeed;
+        this.seedCount = seedCount;
+        this.steps = steps;
+        this.workers = workers;
+        this.quantiles = quantiles.clone();
+    }
+
+    /**
+     * Sets how many steps a seed may run ahead of the oldest step not passed to the sink.
+     * A larger window lets fast seeds keep running while slow ones catch up, at the cost
+     * of buffering values of more steps.
+     *
+     * @param window the amount of steps, at least 1.
+     * @throws IllegalArgumentException if window < 1.
+     */
+    public void setWindow(int window) {
+        if (window < 1)
+            throw new IllegalArgumentException("Window must be greater than 0!");
+        this.window = window;
+    }
+
+    /**
+     * Runs all simulations and passes statistics of every step, starting from the state
+     * before the first step, to the sink. Returns when all runs are finished.
+     *
+     * @param sink the receiver of the statistics.
+     * @throws InterruptedException if the calling thread is interrupted while waiting for runs.
+     */
+    public void run(EnsembleSink sink) throws InterruptedException {
+        int bufferedSteps = Math.min(window, steps + 1);
+        readySeeds = new ArrayDeque<>(seedCount);
+        waitingSeeds = new ArrayList<>();
+        bufferedValues = new int[bufferedSteps][seedCount * METRICS.length];
+        recordedSeeds = new int[bufferedSteps];
+        nextEmittedStep = 0;
+        failure = null;
+        for (int run = 0; run < seedCount; run++) {
+            readySeeds.add(new SeedRun(run));
+        }
+        int threads = Math.min(workers, seedCount);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                tasks.add(() -> {
+                    work(sink);
+                    return null;
+                });
+            }
+            pool.invokeAll(tasks);
+        } finally {
+            pool.shutdownNow();
+        }
+        if (failure != null)
+            throw new RuntimeException("Ensemble run failed: " + failure.getMessage(), failure);
+    }
+
+    /**
+     * Takes seeds which may advance and executes their next steps until all steps are passed
+     * to the sink or any run fails.
+     *
+     * @param sink the receiver of the statistics.
+     * @throws InterruptedException if the worker is interrupted while waiting for a seed.
+     */
+    private void work(EnsembleSink sink) throws InterruptedException {
+        while (true) {
+            SeedRun run;
+            lock.lock();
+            try {
+                while (readySeeds.isEmpty() && !isFinished()) {
+                    seedReady.await();
+                }
+                if (isFinished()) return;
+                run = readySeeds.poll();
+            } finally {
+                lock.unlock();
+            }
+            try {
+                run.advance();
+            } catch (RuntimeException | Error e) {
+                fail(e);
+                return;
+            }
+            record(run, sink);
+        }
+    }
+
+    /**
+     * Buffers values of the executed step of the run, puts the run back into the queue
+     * and passes all steps finished by every seed to the sink, in the order of steps.
+     *
+     * @param run  the run which executed a step.
+     * @param sink the receiver of the statistics.
+     */
+    private void record(SeedRun run, EnsembleSink sink) {
+        lock.lock();
+        try {
+            int slot = run.step % bufferedValues.length;
+            System.arraycopy(run.values, 0, bufferedValues[slot], run.index * METRICS.length, METRICS.length);
+            recordedSeeds[slot]++;
+            run.step++;
+            if (run.step > steps) run.finish();
+            else if (run.step < nextEmittedStep + bufferedValues.length) readySeeds.add(run);
+            else waitingSeeds.add(run);
+            while (!isFinished() && recordedSeeds[nextEmittedStep % bufferedValues.length] == seedCount) {
+                sink.acceptStep(aggregate(nextEmittedStep));
+                recordedSeeds[nextEmittedStep % bufferedValues.length] = 0;
+                nextEmittedStep++;
+                readySeeds.addAll(waitingSeeds);
+                waitingSeeds.clear();
+            }
+            seedReady.signalAll();
+        } catch (RuntimeException | Error e) {
+            fail(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds buffered values of the step to new statistics, in the order of seeds.
+     *
+     * @param step the step finished by every seed.
+     * @return statistics of the step.
+     */
+    private EnsembleStep aggregate(int step) {
+        EnsembleStep statistics = new EnsembleStep(step, quantiles);
+        int[] values = bufferedValues[step % bufferedValues.length];
+        for (int run = 0; run < seedCount; run++) {
+            for (EnsembleMetric metric : METRICS) {
+                statistics.getStatistics(metric).add(values[run * METRICS.length + metric.ordinal()]);
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Stores the first failure of a run and wakes up all workers, so they stop.
+     *
+     * @param e the failure.
+     */
+    private void fail(Throwable e) {
+        lock.lock();
+        try {
+            if (failure == null) failure = e;
+            seedReady.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return true if all steps were passed to the sink or any run failed.
+     */
+    private boolean isFinished() {
+        return nextEmittedStep > steps || failure != null;
+    }
+
+    /**
+     * Simulation of one seed. Every advance creates the simulation or executes its next
+     * step and keeps values of all metrics, until they are buffered. The map is stepped
+     * on the worker thread, as workers already use all cores.
+     */
+    private class SeedRun {
+        private final int index;
+        private final int[] values = new int[METRICS.length];
+        private Simulation simulation;
+        private int step = 0;
+
+        /**
+         * @param index the number of the seed in the range.
+         */
+        SeedRun(int index) {
+            this.index = index;
+        }
+
+        /**
+         * Executes the next step of the run, or creates the simulation before the first step.
+         */
+        void advance() {
+            if (simulation == null) {
+                simulation = new Simulation(params.withSeed(firstSeed + index));
+                simulation.getMap().setStepPool(null);
+            } else {
+                simulation.step();
+            }
+            AbstractMap map = simulation.getMap();
+            for (EnsembleMetric metric : METRICS) {
+                values[metric.ordinal()] = metric.valueOf(map);
+            }
+        }
+
+        /**
+         * Frees the simulation after its last step.
+         */
+        void finish() {
+            simulation = null;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package agh.darwinworld.ensemble;
+
+/**
+ * Receives statistics of an ensemble as soon as all runs finish a step.
+ */
+@FunctionalInterface
+public interface EnsembleSink {
+    /**
+     * Called once for every step, in the order of steps. Calls are never concurrent,
+     * but they may come from different worker threads.
+     *
+     * @param step statistics of the step across all runs.
+     */
+    void acceptStep(EnsembleStep step);
+}
@@ -0,0 +1,39 @@
+package agh.darwinworld.ensemble;
+
+import java.util.EnumMap;
+
+/**
+ * Statistics of all metrics across runs of an ensemble after one simulation step.
+ */
+public class EnsembleStep {
+    private final int step;
+    private final EnumMap<EnsembleMetric, RunningStatistics> statistics = new EnumMap<>(EnsembleMetric.class);
+
+    /**
+     * Creates empty statistics of the step.
+     *
+     * @param step          the simulation step, 0 for the state before the first step.
+     * @param probabilities probabilities of the estimated quantiles.
+     */
+    EnsembleStep(int step, double[] probabilities) {
+        this.step = step;
+        for (EnsembleMetric metric : EnsembleMetric.values()) {
+            statistics.put(metric, new RunningStatistics(probabilities));
+        }
+    }
+
+    /**
+     * @return the simulation step, 0 for the state before the first step.
+     */
+    public int getStep() {
+        return step;
+    }
+
+    /**
+     * @param metric the metric.
+     * @return statistics of the metric across runs.
+     */
+    public RunningStatistics getStatistics(EnsembleMetric metric) {
+        return statistics.get(metric);
+    }
+}
@@ -0,0 +1,123 @@
+package agh.darwinworld.ensemble;
+
+import java.util.Arrays;
+
+/**
+ * Streaming estimator of a single quantile using the P² algorithm of Jain and Chlamtac.
+ * It keeps five markers whose heights follow the minimum, the quantile, the maximum
+ * and two points between them, so it needs constant memory regardless of the amount
+ * of observations. The first five observations are kept exactly.
+ */
+public class P2Quantile {
+    private final double probability;
+    private final double[] heights = new double[5];
+    private final int[] positions = new int[5];
+    private final double[] desired = new double[5];
+    private final double[] increments;
+    private long count = 0;
+
+    /**
+     * Creates an estimator of the given quantile.
+     *
+     * @param probability the probability of the quantile, e.g. 0.5 for the median.
+     * @throws IllegalArgumentException if probability is not between 0 and 1.
+     */
+    public P2Quantile(double probability) {
+        if (probability < 0 || probability > 1)
+            throw new IllegalArgumentException("Probability must be between 0 and 1!");
+        this.probability = probability;
+        this.increments = new double[]{0, probability / 2, probability, (1 + probability) / 2, 1};
+    }
+
+    /**
+     * @return the probability of the estimated quantile.
+     */
+    public double getProbability() {
+        return probability;
+    }
+
+    /**
+     * Adds the observation to the estimate.
+     *
+     * @param value the observed value.
+     */
+    public void add(double value) {
+        if (count < 5) {
+            heights[(int) count++] = value;
+            if (count == 5) {
+                Arrays.sort(heights);
+                for (int i = 0; i < 5; i++) positions[i] = i;
+                desired[0] = 0;
+                desired[1] = 2 * probability;
+                desired[2] = 4 * probability;
+                desired[3] = 2 + 2 * probability;
+                desired[4] = 4;
+            }
+            return;
+        }
+        int cell;
+        if (value < heights[0]) {
+            heights[0] = value;
+            cell = 0;
+        } else if (value >= heights[4]) {
+            heights[4] = value;
+            cell = 3;
+        } else {
+            cell = 0;
+            while (value >= heights[cell + 1]) cell++;
+        }
+        for (int i = cell + 1; i < 5; i++) positions[i]++;
+        for (int i = 0; i < 5; i++) desired[i] += increments[i];
+        count++;
+        for (int i = 1; i < 4; i++) {
+            double shift = desired[i] - positions[i];
+            if ((shift >= 1 && positions[i + 1] - positions[i] > 1)
+                    || (shift <= -1 && positions[i - 1] - positions[i] < -1)) {
+                int direction = shift > 0 ? 1 : -1;
+                double height = parabolic(i, direction);
+                if (heights[i - 1] < height && height < heights[i + 1]) heights[i] = height;
+                else heights[i] = linear(i, direction);
+                positions[i] += direction;
+            }
+        }
+    }
+
+    /**
+     * @return the amount of observations.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the estimate of the quantile, or NaN if there are no observations.
+     */
+    public double getQuantile() {
+        if (count == 0) return Double.NaN;
+        if (count >= 5) return heights[2];
+        double[] sorted = Arrays.copyOf(heights, (int) count);
+        Arrays.sort(sorted);
+        return sorted[(int) Math.round(probability * (count - 1))];
+    }
+
+    /**
+     * Predicts the height of the marker moved in the given direction with a parabola
+     * through the marker and its neighbours.
+     */
+    private double parabolic(int i, int direction) {
+        double left = positions[i] - positions[i - 1];
+        double right = positions[i + 1] - positions[i];
+        return heights[i] + direction / (double) (positions[i + 1] - positions[i - 1])
+                * ((left + direction) * (heights[i + 1] - heights[i]) / right
+                + (right - direction) * (heights[i] - heights[i - 1]) / left);
+    }
+
+    /**
+     * Predicts the height of the marker moved in the given direction with a line
+     * through the marker and its neighbour.
+     */
+    private double linear(int i, int direction) {
+        return heights[i] + direction * (heights[i + direction] - heights[i])
+                / (positions[i + direction] - positions[i]);
+    }
+}
@@ -0,0 +1,103 @@
+package agh.darwinworld.ensemble;
+
+/**
+ * Streaming statistics of a series of values. Mean and variance are updated
+ * with Welford's algorithm and quantiles are estimated with {@link P2Quantile},
+ * so memory does not depend on the amount of values.
+ */
+public class RunningStatistics {
+    private final P2Quantile[] quantiles;
+    private long count = 0;
+    private double mean = 0;
+    private double squaredDeviations = 0;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    /**
+     * Creates empty statistics estimating the given quantiles.
+     *
+     * @param probabilities probabilities of the estimated quantiles.
+     * @throws IllegalArgumentException if any probability is not between 0 and 1.
+     */
+    public RunningStatistics(double... probabilities) {
+        quantiles = new P2Quantile[probabilities.length];
+        for (int i = 0; i < probabilities.length; i++) {
+            quantiles[i] = new P2Quantile(probabilities[i]);
+        }
+    }
+
+    /**
+     * Adds the value to the statistics.
+     *
+     * @param value the value to add.
+     */
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        squaredDeviations += delta * (value - mean);
+        if (count == 1 || value < min) min = value;
+        if (count == 1 || value > max) max = value;
+        for (P2Quantile quantile : quantiles) {
+            quantile.add(value);
+        }
+    }
+
+    /**
+     * @return the amount of values.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the mean of the values, or 0 if there are none.
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * @return the sample variance of the values, or 0 if there are less than two values.
+     */
+    public double getVariance() {
+        return count < 2 ? 0 : squaredDeviations / (count - 1);
+    }
+
+    /**
+     * @return the smallest value, or NaN if there are no values.
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * @return the largest value, or NaN if there are no values.
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * @return the amount of estimated quantiles.
+     */
+    public int getQuantileCount() {
+        return quantiles.length;
+    }
+
+    /**
+     * @param i the number of the quantile, in the order given to the constructor.
+     * @return the estimate of the quantile, or NaN if there are no values.
+     */
+    public double getQuantile(int i) {
+        return quantiles[i].getQuantile();
+    }
+
+    /**
+     * @param i the number of the quantile, in the order given to the constructor.
+     * @return the probability of the quantile.
+     */
+    public double getQuantileProbability(int i) {
+        return quantiles[i].getProbability();
+    }
+}
@@ -0,0 +1,138 @@
+package agh.darwinworld.models;
+
+import java.io.Serial;
+import java.util.Random;
+
+/**
+ * Counter-based random number generator built on SplitMix64. Used as a plain
+ * {@link Random}, it draws a sequential stream from its seed. Besides that it
+ * derives independent streams keyed by a purpose, a simulation step and an
+ * identifier of an animal, so the numbers of an animal do not depend on the
+ * order in which animals are visited nor on the thread visiting them.
+ * Keyed draws do not change the state of the generator and can be made concurrently.
+ * Sequential draws do change it and are not thread-safe, unlike those of {@link Random},
+ * so a generator used as a plain {@link Random} must be confined to one thread.
+ */
+public class CounterRandom extends Random {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long key;
+    private long state;
+
+    /**
+     * Creates a generator with the given seed.
+     *
+     * @param seed the seed of the generator.
+     */
+    public CounterRandom(long seed) {
+        super(seed);
+        this.key = seed;
+        this.state = seed;
+    }
+
+    /**
+     * @return the seed of keyed draws, given to the constructor or to {@link #setSeed(long)}.
+     */
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * Sets the seed of both sequential and keyed draws, so the generator
+     * draws the same numbers as a new generator with the given seed.
+     *
+     * @param seed the new seed of the generator.
+     */
+    @Override
+    public void setSeed(long seed) {
+        key = seed;
+        state = seed;
+    }
+
+    @Override
+    protected int next(int bits) {
+        state += GOLDEN_GAMMA;
+        return (int) (mix(state) >>> (64 - bits));
+    }
+
+    /**
+     * Creates an independent generator for the given key. Generators created
+     * with the same key by generators with the same seed draw the same numbers.
+     *
+     * @param purpose the purpose of the numbers.
+     * @param step    the simulation step.
+     * @param id      the identifier of the animal.
+     * @return the new generator.
+     */
+    public CounterRandom split(RandomPurpose purpose, long step, long id) {
+        return new CounterRandom(keyOf(purpose, step, id));
+    }
+
+    /**
+     * Draws a single number for the given key without changing the state of the generator.
+     *
+     * @param purpose the purpose of the number.
+     * @param step    the simulation step.
+     * @param id      the identifier of the animal.
+     * @return uniformly distributed int value.
+     */
+    public int nextInt(RandomPurpose purpose, long step, long id) {
+        return (int) (mix(keyOf(purpose, step, id) + GOLDEN_GAMMA) >>> 32);
+    }
+
+    /**
+     * Draws a single number for the given key without changing the state of the generator.
+     *
+     * @param purpose the purpose of the number.
+     * @param step    the simulation step.
+     * @param id      the identifier of the animal.
+     * @param bound   the upper bound (exclusive), must be positive.
+     * @return int value between 0 (inclusive) and the bound (exclusive).
+     * @throws IllegalArgumentException if bound is not positive.
+     */
+    public int nextInt(RandomPurpose purpose, long step, long id, int bound) {
+        if (bound <= 0)
+            throw new IllegalArgumentException("Bound must be positive!");
+        return (int) (((mix(keyOf(purpose, step, id) + GOLDEN_GAMMA) >>> 32) * bound) >>> 32);
+    }
+
+    /**
+     * Draws a single number for the given key without changing the state of the generator.
+     * Different variants of the same purpose, e.g. different types of animals, have
+     * independent streams.
+     *
+     * @param purpose the purpose of the number.
+     * @param variant the variant of the purpose.
+     * @param step    the simulation step.
+     * @param id      the identifier of the animal.
+     * @param bound   the upper bound (exclusive), must be positive.
+     * @return int value between 0 (inclusive) and the bound (exclusive).
+     * @throws IllegalArgumentException if bound is not positive.
+     */
+    public int nextInt(RandomPurpose purpose, long variant, long step, long id, int bound) {
+        if (bound <= 0)
+            throw new IllegalArgumentException("Bound must be positive!");
+        long hash = mix(keyOf(purpose, step, id) + variant * GOLDEN_GAMMA);
+        return (int) (((mix(hash + GOLDEN_GAMMA) >>> 32) * bound) >>> 32);
+    }
+
+    /**
+     * Hashes the seed of the generator with the given key.
+     */
+    private long keyOf(RandomPurpose purpose, long step, long id) {
+        long hash = mix(key + (purpose.ordinal() + 1) * GOLDEN_GAMMA);
+        hash = mix(hash + step * GOLDEN_GAMMA);
+        return mix(hash + id * GOLDEN_GAMMA);
+    }
+
+    /**
+     * Finalizer of SplitMix64, mixing all bits of the value.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,81 @@
+package agh.darwinworld.models;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of cells changed by fire during one simulation step.
+ * Every burning cell loses its plant and its animals, so only the step
+ * in which its fire is extinguished is stored for each cell. Listeners
+ * can compute the stage of a burning cell in any later step from it.
+ */
+public final class FireChangeSet {
+    private final int step;
+    private final Vector2D[] positions;
+    private final int[] fireEnds;
+    private final int maxAnimalAmount;
+
+    /**
+     * Creates a change set of the first {@code size} cells of the given arrays.
+     * The arrays are copied, so they can be reused by the caller.
+     *
+     * @param step            the simulation step of the changes.
+     * @param positions       positions of the changed cells.
+     * @param fireEnds        steps in which fire on the changed cells is extinguished,
+     *                        equal to {@code step} for extinguished cells.
+     * @param size            the amount of changed cells.
+     * @param maxAnimalAmount maximum amount of animals on one cell after the changes.
+     */
+    public FireChangeSet(int step, Vector2D[] positions, int[] fireEnds, int size, int maxAnimalAmount) {
+        this.step = step;
+        this.positions = Arrays.copyOf(positions, size);
+        this.fireEnds = Arrays.copyOf(fireEnds, size);
+        this.maxAnimalAmount = maxAnimalAmount;
+    }
+
+    /**
+     * @return the simulation step of the changes.
+     */
+    public int getStep() {
+        return step;
+    }
+
+    /**
+     * @return the amount of changed cells.
+     */
+    public int size() {
+        return positions.length;
+    }
+
+    /**
+     * @param i the number of the changed cell.
+     * @return the position of the changed cell.
+     */
+    public Vector2D getPosition(int i) {
+        return positions[i];
+    }
+
+    /**
+     * @param i the number of the changed cell.
+     * @return the step in which the fire on the cell is extinguished. If it is
+     * equal to or less than the step of the changes, the fire is extinguished.
+     */
+    public int getFireEnd(int i) {
+        return fireEnds[i];
+    }
+
+    /**
+     * @param i the number of the changed cell.
+     * @return remaining length of the fire on the cell in the step of the changes.
+     * If it is equal to or less than 0, the fire is extinguished.
+     */
+    public int getLength(int i) {
+        return fireEnds[i] - step;
+    }
+
+    /**
+     * @return maximum amount of animals on one cell after the changes.
+     */
+    public int getMaxAnimalAmount() {
+        return maxAnimalAmount;
+    }
+}
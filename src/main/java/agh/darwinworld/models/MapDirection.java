@@ -44,6 +44,11 @@ public enum MapDirection {
      */
     NORTHWEST(new Vector2D(-1, 1));
 
+    /**
+     * Cached result of {@link #values()}, which clones the array on every call.
+     */
+    private static final MapDirection[] VALUES = values();
+
     /**
      * The vector associated with the direction.
      */
@@ -74,8 +79,16 @@ public enum MapDirection {
      * @return the new MapDirection after rotation.
      */
     public MapDirection rotate(MoveDirection moveDirection) {
-        MapDirection[] directions = MapDirection.values();
-        int ind = (ordinal() + moveDirection.ordinal()) % directions.length;
-        return directions[ind];
+        return VALUES[(ordinal() + moveDirection.ordinal()) % VALUES.length];
+    }
+
+    /**
+     * Returns the direction with the given ordinal without allocating.
+     *
+     * @param ordinal the ordinal of the direction.
+     * @return the direction with the given ordinal.
+     */
+    public static MapDirection fromOrdinal(int ordinal) {
+        return VALUES[ordinal];
     }
 }
@@ -0,0 +1,27 @@
+package agh.darwinworld.models;
+
+/**
+ * Purposes of random numbers drawn from a {@link CounterRandom}. Every purpose
+ * has its own streams, so adding draws for one purpose does not change the others.
+ */
+public enum RandomPurpose {
+    /**
+     * Genome, direction and current gene of a spawned animal.
+     */
+    SPAWN,
+
+    /**
+     * Crossover, mutations, direction and current gene of an offspring.
+     */
+    BREED,
+
+    /**
+     * Roll deciding whether an animal skips its move, with a separate stream for every type of animals.
+     */
+    SKIP_MOVE,
+
+    /**
+     * Tie-break between animals with the same breeding priority.
+     */
+    BREEDING_ORDER
+}
@@ -31,8 +31,15 @@ public record SimulationParameters(
         int refreshTime,
         int seed,
         MapType mapType,
-        AnimalType animalType
+        AnimalType animalType,
+        int retainedGenerations
 ) {
+    /**
+     * Amount of generations of dead ancestors kept in the lineage graph by default.
+     * Only living animals and animals selected in the UI keep their ancestors.
+     */
+    public static final int DEFAULT_RETAINED_GENERATIONS = 0;
+
     /**
      * Creates an instance of {@code SimulationParameters}.
      *
@@ -54,6 +61,7 @@ public record SimulationParameters(
      * @param seed                  the seed for randomization.
      * @param mapType               the type of the map.
      * @param animalType            the type of animals in the simulation.
+     * @param retainedGenerations   the amount of generations of dead ancestors kept in the lineage graph.
      * @throws IllegalArgumentException if parameters are invalid.
      */
     public SimulationParameters {
@@ -72,6 +80,7 @@ public record SimulationParameters(
         validateInt(fireInterval, "Fire interval", 1, null);
         validateInt(fireLength, "Fire length", 1, null);
         validateInt(refreshTime, "Refresh time", 10, null);
+        validateInt(retainedGenerations, "Retained generations", 0, null);
         if (minimumMutationAmount > maximumMutationAmount) {
             throw new IllegalArgumentException("Minimum mutation amount must be less than or equal to maximum mutation amount.");
         }
@@ -86,6 +95,41 @@ public record SimulationParameters(
         }
     }
 
+    /**
+     * Creates an instance of {@code SimulationParameters} with the default
+     * amount of retained generations.
+     *
+     * @param width                 the width of the map.
+     * @param height                the height of the map.
+     * @param startingPlantAmount   the initial number of plants on the map.
+     * @param plantGrowingAmount    the number of plants that grow each step.
+     * @param plantEnergyAmount     the energy gained by consuming a plant.
+     * @param startingAnimalAmount  the initial number of animals on the map.
+     * @param startingEnergyAmount  the starting energy of animals.
+     * @param minimumBreedingEnergy the minimum energy required for breeding.
+     * @param breedingEnergyCost    the energy cost for breeding.
+     * @param minimumMutationAmount the minimum number of mutations an animal can have.
+     * @param maximumMutationAmount the maximum number of mutations an animal can have.
+     * @param animalGenomeLength    the length of the animal genome.
+     * @param fireInterval          the interval at which fires occur.
+     * @param fireLength            the duration of a fire.
+     * @param refreshTime           the refresh time for simulation updates.
+     * @param seed                  the seed for randomization.
+     * @param mapType               the type of the map.
+     * @param animalType            the type of animals in the simulation.
+     * @throws IllegalArgumentException if parameters are invalid.
+     */
+    public SimulationParameters(int width, int height, int startingPlantAmount, int plantGrowingAmount,
+                                int plantEnergyAmount, int startingAnimalAmount, int startingEnergyAmount,
+                                int minimumBreedingEnergy, int breedingEnergyCost, int minimumMutationAmount,
+                                int maximumMutationAmount, int animalGenomeLength, int fireInterval, int fireLength,
+                                int refreshTime, int seed, MapType mapType, AnimalType animalType) {
+        this(width, height, startingPlantAmount, plantGrowingAmount, plantEnergyAmount, startingAnimalAmount,
+                startingEnergyAmount, minimumBreedingEnergy, breedingEnergyCost, minimumMutationAmount,
+                maximumMutationAmount, animalGenomeLength, fireInterval, fireLength, refreshTime, seed, mapType,
+                animalType, DEFAULT_RETAINED_GENERATIONS);
+    }
+
     /**
      * Creates an instance of {@code SimulationParameters}.
      *
@@ -191,7 +235,8 @@ public record SimulationParameters(
                     json.getInt("refreshTime"),
                     json.getInt("seed"),
                     MapType.values()[json.getInt("mapType")],
-                    AnimalType.values()[json.getInt("animalType")]
+                    AnimalType.values()[json.getInt("animalType")],
+                    json.optInt("retainedGenerations", DEFAULT_RETAINED_GENERATIONS)
             );
         } catch (Exception e) {
             throw new UserFriendlyException("Failed to load simulation parameters from file: "+file, e.toString());
@@ -199,6 +244,19 @@ public record SimulationParameters(
 
     }
 
+    /**
+     * Creates a copy of the parameters with another seed.
+     *
+     * @param seed the seed for randomization.
+     * @return parameters equal to these ones except for the seed.
+     */
+    public SimulationParameters withSeed(int seed) {
+        return new SimulationParameters(width, height, startingPlantAmount, plantGrowingAmount, plantEnergyAmount,
+                startingAnimalAmount, startingEnergyAmount, minimumBreedingEnergy, breedingEnergyCost,
+                minimumMutationAmount, maximumMutationAmount, animalGenomeLength, fireInterval, fireLength,
+                refreshTime, seed, mapType, animalType, retainedGenerations);
+    }
+
     public void saveToJson(String path) throws UserFriendlyException {
         try (FileWriter writer = new FileWriter(path)) {
             JSONObject json = new JSONObject();
@@ -220,6 +278,7 @@ public record SimulationParameters(
             json.put("seed", seed);
             json.put("mapType", mapType.ordinal());
             json.put("animalType", animalType.ordinal());
+            json.put("retainedGenerations", retainedGenerations);
             writer.write(json.toString());
         } catch (Exception e) {
             throw new UserFriendlyException("Failed to save simulation parameters to file: "+path, e.toString());
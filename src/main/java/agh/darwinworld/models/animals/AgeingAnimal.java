@@ -1,10 +1,5 @@
 package agh.darwinworld.models.animals;
 
-import agh.darwinworld.models.MapDirection;
-import agh.darwinworld.models.Vector2D;
-import agh.darwinworld.models.listeners.MovementHandler;
-import javafx.util.Pair;
-
 import java.util.Random;
 
 /**
@@ -22,7 +17,7 @@ public class AgeingAnimal extends Animal {
      * @throws IllegalArgumentException if genomeLength < 0 or energy < 0.
      */
     public AgeingAnimal(Random random, int genomeLength, int energy) {
-        super(random, genomeLength, energy);
+        super(AnimalType.AGEING_ANIMAL, new Population(random, genomeLength, 1), energy);
     }
 
     /**
@@ -38,19 +33,16 @@ public class AgeingAnimal extends Animal {
      */
     public AgeingAnimal(Animal mommy, Animal daddy, int breedingEnergyCost, int minimalBreedingEnergy,
                         int minMutations, int maxMutations, int step) {
-        super(mommy, daddy, breedingEnergyCost, minimalBreedingEnergy, minMutations, maxMutations, step);
+        super(AnimalType.AGEING_ANIMAL, mommy, daddy, breedingEnergyCost, minimalBreedingEnergy, minMutations, maxMutations, step);
     }
 
-    @Override
-    public Vector2D move(MovementHandler handler, Vector2D position, int step) {
-        MapDirection direction = getNextMove(step);
-        if (random.nextInt(100) < Math.min(age, 80)) {
-            return position;
-        }
-        Pair<Vector2D, MapDirection> movePair = handler.move(position, direction);
-        Vector2D newPos = movePair.getKey();
-        updateDirection(movePair.getValue());
-        listeners.forEach(listener -> listener.move(position, newPos));
-        return newPos;
+    /**
+     * Constructs a view of the animal stored in the slot of the population.
+     *
+     * @param population the population of the animal.
+     * @param slot       the slot of the animal.
+     */
+    protected AgeingAnimal(Population population, int slot) {
+        super(population, slot);
     }
 }
@@ -4,58 +4,54 @@ import agh.darwinworld.models.MapDirection;
 import agh.darwinworld.models.MoveDirection;
 import agh.darwinworld.models.Vector2D;
 import agh.darwinworld.models.listeners.AnimalListener;
+import agh.darwinworld.models.listeners.GridMovementHandler;
 import agh.darwinworld.models.listeners.MovementHandler;
 import javafx.util.Pair;
 
 import java.beans.PropertyChangeEvent;
-import java.util.*;
-import java.util.stream.Stream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Random;
 
 /**
- * Represents an animal in the Darwin World simulation.
+ * Represents an animal in the Darwin World simulation. The state of the animal
+ * is kept in a {@link Population}, the animal object is only a view over its slot.
  */
-public class Animal implements AnimalListener {
-    protected final Random random;
-    protected final UUID uuid = UUID.randomUUID();
-    protected final ArrayList<AnimalListener> listeners = new ArrayList<>();
-    protected final ArrayList<Animal> subscribedTo = new ArrayList<>();
-    protected final HashSet<Animal> descendants = new HashSet<>();
-
-    protected final MoveDirection[] genome;
-    protected MapDirection direction;
-    protected int energy;
-    protected int currentGeneIndex;
-    protected int age = 0;
-    protected int childrenAmount = 0;
-    protected int totalEatenPlants = 0;
-    protected Integer diedAt = null;
+public class Animal {
+    private static final AnimalProperty[] PROPERTIES = AnimalProperty.values();
+
+    private final EnumMap<AnimalProperty, List<AnimalListener>> listeners = new EnumMap<>(AnimalProperty.class);
+
+    private Population population;
+    private int slot;
 
     /**
      * @return the current direction of the animal.
      */
     public MapDirection getDirection() {
-        return this.direction;
+        return population.getDirection(slot);
     }
 
     /**
      * @return the genome of the animal.
      */
     public MoveDirection[] getGenome() {
-        return this.genome;
+        return population.getGenome(slot).toArray();
     }
 
     /**
      * @return the current gene the animal will use for the next move.
      */
     public MoveDirection getCurrentGene() {
-        return this.genome[this.currentGeneIndex];
+        return population.getCurrentGene(slot);
     }
 
     /**
      * @return the age of the animal represented in simulation steps.
      */
     public int getAge() {
-        return this.age;
+        return population.getAge(slot);
     }
 
     /**
@@ -63,21 +59,21 @@ public class Animal implements AnimalListener {
      * is dead, returns -1;
      */
     public int getEnergy() {
-        return this.energy;
+        return population.getEnergy(slot);
     }
 
     /**
      * @return the number of children this animal has produced.
      */
     public int getChildrenAmount() {
-        return this.childrenAmount;
+        return population.getChildrenAmount(slot);
     }
 
     /**
-     * @return all descendants of this animal.
+     * @return the number of distinct descendants of this animal.
      */
     public int getDescendantsAmount() {
-        return descendants.size();
+        return population.getDescendantsAmount(slot);
     }
 
     /**
@@ -85,7 +81,7 @@ public class Animal implements AnimalListener {
      * its energy is less than 0.
      */
     public boolean isDead() {
-        return this.energy < 0;
+        return population.isDead(slot);
     }
 
     /**
@@ -93,93 +89,96 @@ public class Animal implements AnimalListener {
      * If animal is still alive, returns -1.
      */
     public int diedAt() {
-        return this.diedAt;
+        return population.getDiedAt(slot);
     }
 
     /**
      * @return total amount of plants that this animal has eaten.
      */
     public int getTotalEatenPlants() {
-        return this.totalEatenPlants;
+        return population.getTotalEatenPlants(slot);
     }
 
     /**
-     * @return animal's unique identifier.
+     * @return animal's identifier, unique within the map.
      */
-    public UUID getUuid() {
-        return this.uuid;
+    public long getId() {
+        return population.getId(slot);
     }
 
     /**
-     * Updates animal's age by increasing by 1 and notifies listeners about the change.
+     * Checks if anyone listens to the property. Callers check it before
+     * computing or boxing values of the event, so changes of unobserved
+     * properties cost nothing.
+     *
+     * @param property the property to check.
+     * @return true if at least one listener is subscribed to the property, false otherwise.
      */
-    protected void increaseAge() {
-        this.age++;
-        PropertyChangeEvent event = new PropertyChangeEvent(this, "age", this.age - 1, this.age);
-        listeners.forEach(listener -> listener.propertyChange(event));
+    public boolean isObserved(AnimalProperty property) {
+        List<AnimalListener> propertyListeners = listeners.get(property);
+        return propertyListeners != null && !propertyListeners.isEmpty();
     }
 
     /**
-     * Updates animal's energy and notifies listeners about the change.
+     * @return true if at least one listener is subscribed to any property, false otherwise.
      */
-    protected void updateEnergy(int newEnergy, int step) {
-        PropertyChangeEvent event = new PropertyChangeEvent(this, "energy", this.energy, newEnergy);
-        this.energy = newEnergy;
-        listeners.forEach(listener -> listener.propertyChange(event));
-        if (energy < 0) {
-            PropertyChangeEvent diedEvent = new PropertyChangeEvent(this, "diedAt", this.diedAt, step);
-            this.diedAt = step;
-            listeners.forEach(listener -> listener.propertyChange(diedEvent));
-            if (listeners.isEmpty()) {
-                for (Animal child : subscribedTo) {
-                    child.removeListener(this);
-                }
-                subscribedTo.clear();
-            }
+    boolean hasListeners() {
+        for (List<AnimalListener> propertyListeners : listeners.values()) {
+            if (!propertyListeners.isEmpty()) return true;
         }
+        return false;
     }
 
     /**
-     * Updates animal's current genome index and notifies listeners about the change.
+     * Notifies listeners of the property about its change.
+     *
+     * @param property the changed property.
+     * @param oldValue the old value of the property.
+     * @param newValue the new value of the property.
      */
-    protected void selectNextGene() {
-        MoveDirection oldGene = getCurrentGene();
-        this.currentGeneIndex = (this.currentGeneIndex + 1) % this.genome.length;
-        PropertyChangeEvent event = new PropertyChangeEvent(this, "currentGene", oldGene, getCurrentGene());
-        listeners.forEach(listener -> listener.propertyChange(event));
+    void firePropertyChange(AnimalProperty property, Object oldValue, Object newValue) {
+        if (!isObserved(property)) return;
+        PropertyChangeEvent event = new PropertyChangeEvent(this, property.getPropertyName(), oldValue, newValue);
+        listeners.get(property).forEach(listener -> listener.propertyChange(event));
     }
 
     /**
-     * Updates animal's children amount and notifies listeners about the change.
+     * Notifies listeners about the change of energy and about the death of the animal.
+     *
+     * @param oldEnergy the energy before the change.
+     * @param newEnergy the energy after the change.
+     * @param oldDiedAt the step of death before the change, -1 if the animal was alive.
+     * @param step      the current simulation step.
      */
-    protected void increaseChildrenAmount(Animal child) {
-        this.childrenAmount++;
-        PropertyChangeEvent event = new PropertyChangeEvent(this, "childrenAmount", this.childrenAmount - 1, this.childrenAmount);
-        listeners.forEach(listener -> listener.propertyChange(event));
-        increaseDescendantsAmount(child);
-        child.addListener(this);
-        subscribedTo.add(child);
+    void onEnergyChanged(int oldEnergy, int newEnergy, int oldDiedAt, int step) {
+        if (isObserved(AnimalProperty.ENERGY))
+            firePropertyChange(AnimalProperty.ENERGY, oldEnergy, newEnergy);
+        if (newEnergy < 0) {
+            if (isObserved(AnimalProperty.DIED_AT))
+                firePropertyChange(AnimalProperty.DIED_AT, oldDiedAt < 0 ? null : oldDiedAt, step);
+        }
     }
 
     /**
-     * Updates animal's descendants amount and notifies listeners about the change.
+     * Notifies listeners about the move of the animal.
+     *
+     * @param oldPosition the position before the move.
+     * @param newPosition the position after the move.
      */
-    protected void increaseDescendantsAmount(Animal descendant) {
-        if (descendants.contains(descendant)) return;
-        descendants.add(descendant);
-        PropertyChangeEvent event = new PropertyChangeEvent(this, "descendantsAmount", getDescendantsAmount() - 1, getDescendantsAmount());
-        listeners.forEach(listener -> listener.propertyChange(event));
-        PropertyChangeEvent descendantEvent = new PropertyChangeEvent(this, "descendantAdded", null, descendant);
-        listeners.forEach(listener -> listener.propertyChange(descendantEvent));
+    void notifyMove(Vector2D oldPosition, Vector2D newPosition) {
+        if (!isObserved(AnimalProperty.POSITION)) return;
+        listeners.get(AnimalProperty.POSITION).forEach(listener -> listener.move(oldPosition, newPosition));
     }
 
     /**
-     * Updates animal's current direction and notifies listeners about the change.
+     * Moves the view to another slot, e.g. when the animal is removed from its population.
+     *
+     * @param population the new population of the animal.
+     * @param slot       the new slot of the animal.
      */
-    protected void updateDirection(MapDirection direction) {
-        PropertyChangeEvent event = new PropertyChangeEvent(this, "direction", this.direction, direction);
-        this.direction = direction;
-        listeners.forEach(listener -> listener.propertyChange(event));
+    void attach(Population population, int slot) {
+        this.population = population;
+        this.slot = slot;
     }
 
     /**
@@ -191,19 +190,7 @@ public class Animal implements AnimalListener {
      * @throws IllegalArgumentException if genomeLength < 0 or energy < 0.
      */
     public Animal(Random random, int genomeLength, int energy) {
-        if (genomeLength < 0)
-            throw new IllegalArgumentException("Genome length must be greater than 0!");
-        if (energy < 0)
-            throw new IllegalArgumentException("Energy must be greater than or equal to 0!");
-        this.random = random;
-        this.genome = new MoveDirection[genomeLength];
-        this.energy = energy;
-        MapDirection[] mapDirections = MapDirection.values();
-        this.direction = mapDirections[random.nextInt(mapDirections.length)];
-        MoveDirection[] moveDirections = MoveDirection.values();
-        for (int i = 0; i < genomeLength; i++)
-            genome[i] = moveDirections[random.nextInt(moveDirections.length)];
-        this.currentGeneIndex = random.nextInt(genomeLength);
+        this(AnimalType.ANIMAL, new Population(random, genomeLength, 1), energy);
     }
 
     /**
@@ -219,79 +206,95 @@ public class Animal implements AnimalListener {
      */
     public Animal(Animal mommy, Animal daddy, int breedingEnergyCost, int minimalBreedingEnergy,
                   int minMutations, int maxMutations, int step) {
-        if (mommy == null || daddy == null)
-            throw new IllegalArgumentException("Parents cannot be null!");
-        if (mommy.isDead() || daddy.isDead())
-            throw new IllegalArgumentException("Provided animal cannot be dead!");
-        if (mommy.energy < minimalBreedingEnergy || daddy.energy < minimalBreedingEnergy)
-            throw new IllegalArgumentException("Provided animal does not have enough energy!");
-
-        mommy.updateEnergy(mommy.getEnergy() - breedingEnergyCost, step);
-        daddy.updateEnergy(daddy.getEnergy() - breedingEnergyCost, step);
-
-        this.random = daddy.random;
-
-        int totalEnergy = mommy.energy + daddy.energy;
-        int mommyGenomeAmount = Math.round(mommy.genome.length * ((float) mommy.energy / totalEnergy));
-        int daddyGenomeAmount = mommy.genome.length - mommyGenomeAmount; // Remaining genes go to daddy
-
-        boolean mommyLeft = random.nextBoolean();
-        MoveDirection[] firstGenomes = mommy.extractGenomes(mommyLeft, mommyGenomeAmount);
-        MoveDirection[] secondGenomes = daddy.extractGenomes(!mommyLeft, daddyGenomeAmount);
+        this(AnimalType.ANIMAL, mommy, daddy, breedingEnergyCost, minimalBreedingEnergy, minMutations, maxMutations, step);
+    }
 
-        this.genome = Stream.concat(Arrays.stream(firstGenomes), Arrays.stream(secondGenomes))
-                .toArray(MoveDirection[]::new);
-        this.energy = breedingEnergyCost * 2;
+    /**
+     * Constructs an animal of the given behaviour in a new slot of the population.
+     *
+     * @param type       the behaviour of the animal.
+     * @param population the population of the animal.
+     * @param energy     the initial energy of the animal.
+     * @throws IllegalArgumentException if energy < 0.
+     */
+    protected Animal(AnimalType type, Population population, int energy) {
+        this(population, population.spawn(type, energy));
+    }
 
-        mutate(minMutations, maxMutations);
+    /**
+     * Constructs an offspring of the given behaviour in the population of daddy.
+     *
+     * @param type                  the behaviour of the offspring.
+     * @param mommy                 the first parent animal.
+     * @param daddy                 the second parent animal.
+     * @param breedingEnergyCost    the energy cost for breeding.
+     * @param minimalBreedingEnergy the minimal energy required for breeding.
+     * @param minMutations          the minimum number of genome mutations.
+     * @param maxMutations          the maximum number of genome mutations.
+     * @throws IllegalArgumentException if any parent is null, dead, or lacks energy.
+     */
+    protected Animal(AnimalType type, Animal mommy, Animal daddy, int breedingEnergyCost, int minimalBreedingEnergy,
+                     int minMutations, int maxMutations, int step) {
+        this(populationOf(mommy, daddy), daddy.population.breed(type, mommy.population, mommy.slot, daddy.slot,
+                breedingEnergyCost, minimalBreedingEnergy, minMutations, maxMutations, step));
+    }
 
-        MapDirection[] directions = MapDirection.values();
-        this.direction = directions[random.nextInt(directions.length)];
-        this.currentGeneIndex = random.nextInt(this.genome.length);
+    /**
+     * Constructs a view of the animal stored in the slot of the population.
+     *
+     * @param population the population of the animal.
+     * @param slot       the slot of the animal.
+     */
+    protected Animal(Population population, int slot) {
+        this.population = population;
+        this.slot = slot;
+        population.bind(slot, this);
+    }
 
-        mommy.increaseChildrenAmount(this);
-        daddy.increaseChildrenAmount(this);
+    /**
+     * Returns the population of the offspring of the given parents.
+     *
+     * @param mommy the first parent animal.
+     * @param daddy the second parent animal.
+     * @return the population of daddy.
+     * @throws IllegalArgumentException if any parent is null.
+     */
+    private static Population populationOf(Animal mommy, Animal daddy) {
+        if (mommy == null || daddy == null)
+            throw new IllegalArgumentException("Parents cannot be null!");
+        return daddy.population;
     }
 
     /**
-     * Adds a listener to monitor events related to the animal.
+     * Adds a listener to monitor all events related to the animal.
      *
      * @param listener the {@link AnimalListener} instance to be added.
      */
     public void addListener(AnimalListener listener) {
-        this.listeners.add(listener);
+        addListener(listener, PROPERTIES);
     }
 
     /**
-     * Removes a listener from monitoring events related to the animal.
+     * Adds a listener to monitor changes of the chosen properties of the animal.
      *
-     * @param listener the {@link AnimalListener} instance to be removed.
+     * @param listener   the {@link AnimalListener} instance to be added.
+     * @param properties the properties the listener is interested in.
      */
-    public void removeListener(AnimalListener listener) {
-        this.listeners.remove(listener);
-        if (listeners.isEmpty()) {
-            for (Animal child : subscribedTo) {
-                child.removeListener(this);
-            }
+    public void addListener(AnimalListener listener, AnimalProperty... properties) {
+        for (AnimalProperty property : properties) {
+            listeners.computeIfAbsent(property, key -> new ArrayList<>(1)).add(listener);
         }
     }
 
     /**
-     * Returns new map direction based on the genome.
+     * Removes a listener from monitoring events related to the animal.
      *
-     * @param step the current simulation step at which the movement occurs.
-     * @return new map direction.
+     * @param listener the {@link AnimalListener} instance to be removed.
      */
-    protected MapDirection getNextMove(int step) {
-        if (isDead())
-            throw new IllegalStateException("Cannot move animal that is dead!");
-        if (this.genome.length == 0)
-            throw new IllegalStateException("Cannot move animal with empty genome!");
-        MapDirection direction = this.direction.rotate(this.genome[this.currentGeneIndex]);
-        selectNextGene();
-        updateEnergy(getEnergy() - 1, step);
-        increaseAge();
-        return direction;
+    public void removeListener(AnimalListener listener) {
+        for (List<AnimalListener> propertyListeners : listeners.values()) {
+            propertyListeners.remove(listener);
+        }
     }
 
     /**
@@ -304,14 +307,30 @@ public class Animal implements AnimalListener {
      * @throws IllegalStateException if the animal is dead or its genome is empty.
      */
     public Vector2D move(MovementHandler handler, Vector2D position, int step) {
-        MapDirection direction = getNextMove(step);
+        MapDirection direction = population.nextMove(slot, step);
+        if (population.skipsMove(slot, population.drawSkipRoll(slot, step))) return position;
         Pair<Vector2D, MapDirection> movePair = handler.move(position, direction);
         Vector2D newPos = movePair.getKey();
-        updateDirection(movePair.getValue());
-        listeners.forEach(listener -> listener.move(position, newPos));
+        population.updateDirection(slot, movePair.getValue().ordinal());
+        notifyMove(position, newPos);
         return newPos;
     }
 
+    /**
+     * Moves the animal to a new cell based on its current genome and movement logic.
+     * Unlike {@link #move(MovementHandler, Vector2D, int)} it does not allocate
+     * positions nor pairs, unless someone listens to the animal's movement.
+     *
+     * @param handler the {@code GridMovementHandler} responsible for determining the new cell and direction.
+     * @param cell    the index of the current cell of the animal.
+     * @param step    the current simulation step at which the movement occurs.
+     * @return the index of the new cell of the animal after the move.
+     * @throws IllegalStateException if the animal is dead or its genome is empty.
+     */
+    public int move(GridMovementHandler handler, int cell, int step) {
+        return population.move(slot, handler, cell, step);
+    }
+
     /**
      * Increases the animal's energy by the specified amount and updates the count of eaten plants.
      *
@@ -320,13 +339,7 @@ public class Animal implements AnimalListener {
      * @throws IllegalArgumentException if {@code energy} is less than 0.
      */
     public void eat(int energy, int step) {
-        if (isDead()) return;
-        if (energy < 0)
-            throw new IllegalArgumentException("Energy added must be greater than or equal to 0!");
-        this.totalEatenPlants++;
-        PropertyChangeEvent event = new PropertyChangeEvent(this, "totalEatenPlants", this.totalEatenPlants - 1, this.totalEatenPlants);
-        listeners.forEach(listener -> listener.propertyChange(event));
-        updateEnergy(getEnergy() + energy, step);
+        population.eat(slot, energy, step);
     }
 
     /**
@@ -335,69 +348,19 @@ public class Animal implements AnimalListener {
      * @param step the current simulation step at which this action occurs.
      */
     public void forceKill(int step) {
-        updateEnergy(-1, step);
-    }
-
-    /**
-     * Mutates the genome of the animal by modifying a random number of genes within a specified range.
-     * Each mutation replaces a gene with a randomly selected {@code MoveDirection}.
-     *
-     * @param min the minimum number (inclusive) of genes to mutate. Must be less than or equal to {@code max}.
-     * @param max the maximum number (inclusive) of genes to mutate. Must be greater than or equal to {@code min}.
-     * @throws IllegalArgumentException if the animal is dead, or if {@code min} is greater than or equal to {@code max}.
-     */
-    private void mutate(int min, int max) {
-        if (isDead())
-            throw new IllegalArgumentException("Cannot mutate genome when animal is dead!");
-        if (min > max)
-            throw new IllegalArgumentException("Minimum amount of mutations has to be less than maximum amount of mutations!");
-        int mutateAmount = random.nextInt(max - min + 1) + min;
-        ArrayList<Integer> indexes = new ArrayList<>();
-        for (int i = 0; i < genome.length; i++) indexes.add(i);
-        Collections.shuffle(indexes, random);
-        MoveDirection[] directions = MoveDirection.values();
-        for (int i = 0; i < mutateAmount; i++) {
-            genome[indexes.get(i)] = directions[random.nextInt(directions.length)];
-        }
-    }
-
-    /**
-     * Extracts a specified number of genes from the genome, either from the left or right side.
-     *
-     * @param leftPart a boolean indicating whether to extract from the left part of the genome.
-     *                 If {@code true}, genes are extracted from the beginning of the genome.
-     *                 If {@code false}, genes are extracted from the end of the genome.
-     * @param amount   the number of genes to extract. Must be greater than or equal to 0.
-     * @return an array of {@code MoveDirection} containing the extracted genes.
-     * @throws IllegalArgumentException if {@code amount} is less than 0.
-     */
-    private MoveDirection[] extractGenomes(boolean leftPart, int amount) {
-        if (amount < 0)
-            throw new IllegalArgumentException("Amount must be greater than or equal to 0!");
-
-        int start = leftPart ? 0 : genome.length - amount;
-        int end = leftPart ? amount : genome.length;
-
-        return Arrays.copyOfRange(genome, start, end);
+        population.kill(slot, step);
     }
 
     @Override
     public int hashCode() {
-        return uuid.hashCode();
+        return Long.hashCode(getId());
     }
 
+    /**
+     * Every animal has at most one view, so views are equal only to themselves.
+     */
     @Override
     public boolean equals(Object o) {
-        if (this == o) return true;
-        if (!(o instanceof Animal animal)) return false;
-        return uuid.equals(animal.uuid);
-    }
-
-    @Override
-    public void propertyChange(PropertyChangeEvent evt) {
-        if (!evt.getPropertyName().equals("descendantAdded")) return;
-        if (!(evt.getNewValue() instanceof Animal descendant))
-            throw new IllegalArgumentException("New value must be an animal!");
-        increaseDescendantsAmount(descendant);
+        return this == o;
     }
 }
@@ -0,0 +1,73 @@
+package agh.darwinworld.models.animals;
+
+/**
+ * Observable properties of an animal. Listeners subscribe to chosen
+ * properties only, so changes of other properties cost them nothing.
+ */
+public enum AnimalProperty {
+    /**
+     * Energy of the animal.
+     */
+    ENERGY("energy"),
+
+    /**
+     * Step at which the animal died.
+     */
+    DIED_AT("diedAt"),
+
+    /**
+     * Age of the animal.
+     */
+    AGE("age"),
+
+    /**
+     * Amount of children of the animal.
+     */
+    CHILDREN_AMOUNT("childrenAmount"),
+
+    /**
+     * Amount of descendants of the animal.
+     */
+    DESCENDANTS_AMOUNT("descendantsAmount"),
+
+    /**
+     * Amount of plants eaten by the animal.
+     */
+    TOTAL_EATEN_PLANTS("totalEatenPlants"),
+
+    /**
+     * Gene the animal will use for the next move.
+     */
+    CURRENT_GENE("currentGene"),
+
+    /**
+     * Direction of the animal.
+     */
+    DIRECTION("direction"),
+
+    /**
+     * Position of the animal, reported through {@code AnimalListener.move}.
+     */
+    POSITION("position");
+
+    /**
+     * Name of the property used in property change events.
+     */
+    private final String propertyName;
+
+    /**
+     * Constructs a AnimalProperty with a specific name.
+     *
+     * @param propertyName the name of the property in property change events.
+     */
+    AnimalProperty(String propertyName) {
+        this.propertyName = propertyName;
+    }
+
+    /**
+     * @return the name of the property used in property change events.
+     */
+    public String getPropertyName() {
+        return propertyName;
+    }
+}
@@ -33,6 +33,30 @@ public enum AnimalType {
         };
     }
 
+    /**
+     * Creates a view of the animal stored in the slot of the population.
+     *
+     * @param population the population of the animal.
+     * @param slot       the slot of the animal.
+     * @return the view of the animal.
+     */
+    Animal createView(Population population, int slot) {
+        return switch (this) {
+            case ANIMAL -> new Animal(population, slot);
+            case AGEING_ANIMAL -> new AgeingAnimal(population, slot);
+        };
+    }
+
+    /**
+     * @return true if animals of the type may skip their moves, false otherwise.
+     */
+    boolean skipsMoves() {
+        return switch (this) {
+            case ANIMAL -> false;
+            case AGEING_ANIMAL -> true;
+        };
+    }
+
     /**
      * To string label of the enum.
      */
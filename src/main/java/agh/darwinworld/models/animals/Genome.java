@@ -0,0 +1,234 @@
+package agh.darwinworld.models.animals;
+
+import agh.darwinworld.models.MoveDirection;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Immutable genome of an animal. Every gene needs only 3 bits,
+ * so 21 genes are packed into a single {@code long}. The hash is
+ * computed once, so genomes are cheap keys of hash maps.
+ */
+public final class Genome {
+    /**
+     * Amount of genes stored in one word.
+     */
+    public static final int GENES_PER_WORD = 21;
+    private static final int GENE_BITS = 3;
+    private static final long GENE_MASK = (1L << GENE_BITS) - 1;
+    private static final MoveDirection[] MOVE_DIRECTIONS = MoveDirection.values();
+
+    private final long[] words;
+    private final int length;
+    private final int hash;
+
+    /**
+     * Creates a genome from packed words.
+     *
+     * @param words  the packed genes, not copied.
+     * @param length the amount of genes.
+     */
+    private Genome(long[] words, int length) {
+        this.words = words;
+        this.length = length;
+        this.hash = 31 * Arrays.hashCode(words) + length;
+    }
+
+    /**
+     * Creates a genome with random genes.
+     *
+     * @param random the random number generator.
+     * @param length the amount of genes.
+     * @return the new genome.
+     * @throws IllegalArgumentException if length < 0.
+     */
+    public static Genome random(Random random, int length) {
+        if (length < 0)
+            throw new IllegalArgumentException("Genome length must be greater than 0!");
+        long[] words = new long[wordCount(length)];
+        for (int i = 0; i < length; i++)
+            set(words, i, random.nextInt(MOVE_DIRECTIONS.length));
+        return new Genome(words, length);
+    }
+
+    /**
+     * Creates a genome of the given genes.
+     *
+     * @param genes the genes of the genome.
+     * @return the new genome.
+     */
+    public static Genome of(MoveDirection... genes) {
+        long[] words = new long[wordCount(genes.length)];
+        for (int i = 0; i < genes.length; i++)
+            set(words, i, genes[i].ordinal());
+        return new Genome(words, genes.length);
+    }
+
+    /**
+     * Creates a genome of an offspring. The left part of the offspring's genome
+     * comes from mommy and the right part from daddy. Genes are copied between
+     * words with masks and shifts.
+     *
+     * @param mommy       the genome of the first parent.
+     * @param daddy       the genome of the second parent.
+     * @param mommyAmount the amount of genes inherited from mommy.
+     * @param mommyLeft   whether genes of mommy are taken from the left side of her genome.
+     *                    Genes of daddy are taken from the opposite side.
+     * @return the genome of the offspring.
+     * @throws IllegalArgumentException if genomes have different lengths or mommyAmount is out of range.
+     */
+    public static Genome crossover(Genome mommy, Genome daddy, int mommyAmount, boolean mommyLeft) {
+        if (mommy.length != daddy.length)
+            throw new IllegalArgumentException("Parents must have genomes of the same length!");
+        if (mommyAmount < 0 || mommyAmount > mommy.length)
+            throw new IllegalArgumentException("Amount must be between 0 and genome length!");
+        int length = mommy.length;
+        int daddyAmount = length - mommyAmount;
+        long[] words = new long[wordCount(length)];
+        copy(mommy.words, mommyLeft ? 0 : length - mommyAmount, words, 0, mommyAmount);
+        copy(daddy.words, mommyLeft ? mommyAmount : 0, words, mommyAmount, daddyAmount);
+        return new Genome(words, length);
+    }
+
+    /**
+     * Creates a mutated copy of the genome by replacing a random number of genes within
+     * a specified range with randomly selected genes. Mutated genes are selected with
+     * partial Fisher-Yates shuffle of the scratch array.
+     *
+     * @param random  the random number generator.
+     * @param min     the minimum number (inclusive) of genes to mutate. Must be less than or equal to {@code max}.
+     * @param max     the maximum number (inclusive) of genes to mutate. Must be greater than or equal to {@code min}.
+     * @param scratch the array of at least {@link #length()} elements used for selecting genes.
+     * @return the mutated genome, or this genome if no gene was selected for mutation.
+     * @throws IllegalArgumentException if {@code min} is greater than {@code max}.
+     */
+    public Genome mutate(Random random, int min, int max, int[] scratch) {
+        if (min > max)
+            throw new IllegalArgumentException("Minimum amount of mutations has to be less than maximum amount of mutations!");
+        int mutateAmount = random.nextInt(max - min + 1) + min;
+        if (mutateAmount <= 0) return this;
+        mutateAmount = Math.min(mutateAmount, length);
+        for (int i = 0; i < length; i++) scratch[i] = i;
+        long[] mutated = words.clone();
+        for (int i = 0; i < mutateAmount; i++) {
+            int j = i + random.nextInt(length - i);
+            int index = scratch[j];
+            scratch[j] = scratch[i];
+            scratch[i] = index;
+            set(mutated, index, random.nextInt(MOVE_DIRECTIONS.length));
+        }
+        return new Genome(mutated, length);
+    }
+
+    /**
+     * @return the amount of genes.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @param index the index of the gene.
+     * @return the gene at the index.
+     */
+    public MoveDirection get(int index) {
+        return MOVE_DIRECTIONS[ordinalAt(index)];
+    }
+
+    /**
+     * @param index the index of the gene.
+     * @return the ordinal of the gene at the index.
+     */
+    public int ordinalAt(int index) {
+        return (int) (words[index / GENES_PER_WORD] >>> (index % GENES_PER_WORD * GENE_BITS) & GENE_MASK);
+    }
+
+    /**
+     * @return genes of the genome as a new array.
+     */
+    public MoveDirection[] toArray() {
+        MoveDirection[] genes = new MoveDirection[length];
+        for (int i = 0; i < length; i++) genes[i] = get(i);
+        return genes;
+    }
+
+    /**
+     * Compares the genome with the given genes without allocating.
+     *
+     * @param genes the genes to compare with.
+     * @return true if genes are equal, false otherwise.
+     */
+    public boolean matches(MoveDirection[] genes) {
+        if (genes == null || genes.length != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (ordinalAt(i) != genes[i].ordinal()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param length the amount of genes.
+     * @return the amount of words needed to store the genes.
+     */
+    private static int wordCount(int length) {
+        return (length + GENES_PER_WORD - 1) / GENES_PER_WORD;
+    }
+
+    /**
+     * Sets the gene in packed words.
+     *
+     * @param words   the packed genes.
+     * @param index   the index of the gene.
+     * @param ordinal the ordinal of the new gene.
+     */
+    private static void set(long[] words, int index, int ordinal) {
+        int shift = index % GENES_PER_WORD * GENE_BITS;
+        int word = index / GENES_PER_WORD;
+        words[word] = words[word] & ~(GENE_MASK << shift) | (long) ordinal << shift;
+    }
+
+    /**
+     * Copies a range of genes between packed words, as many genes at once
+     * as fit in both the source and the target word.
+     *
+     * @param source the packed source genes.
+     * @param from   the index of the first copied gene in the source.
+     * @param target the packed target genes.
+     * @param to     the index of the first copied gene in the target.
+     * @param amount the amount of copied genes.
+     */
+    private static void copy(long[] source, int from, long[] target, int to, int amount) {
+        while (amount > 0) {
+            int sourceOffset = from % GENES_PER_WORD;
+            int targetOffset = to % GENES_PER_WORD;
+            int chunk = Math.min(amount, GENES_PER_WORD - Math.max(sourceOffset, targetOffset));
+            long mask = (1L << chunk * GENE_BITS) - 1;
+            long bits = source[from / GENES_PER_WORD] >>> (sourceOffset * GENE_BITS) & mask;
+            int word = to / GENES_PER_WORD;
+            target[word] = target[word] & ~(mask << targetOffset * GENE_BITS) | bits << targetOffset * GENE_BITS;
+            from += chunk;
+            to += chunk;
+            amount -= chunk;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Genome genome)) return false;
+        return hash == genome.hash && length == genome.length && Arrays.equals(words, genome.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) builder.append(ordinalAt(i));
+        return builder.toString();
+    }
+}
@@ -0,0 +1,205 @@
+package agh.darwinworld.models.animals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Interns identical genomes to shared ids and keeps the amount of living
+ * animals carrying each of them. Genomes are grouped into buckets by their
+ * count and, since counts only change by one, the most popular genome
+ * is known at any time without scanning.
+ */
+public class GenomeRegistry {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final HashMap<Genome, Integer> ids = new HashMap<>();
+    private Genome[] genomes = new Genome[INITIAL_CAPACITY];
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private int[] next = new int[INITIAL_CAPACITY];
+    private int[] prev = new int[INITIAL_CAPACITY];
+    private int[] bucketHeads = new int[INITIAL_CAPACITY];
+    private int[] freeIds = new int[INITIAL_CAPACITY];
+    private int freeIdCount = 0;
+    private int idLimit = 0;
+    private int maxCount = 0;
+
+    /**
+     * Creates an empty registry.
+     */
+    public GenomeRegistry() {
+        Arrays.fill(bucketHeads, -1);
+    }
+
+    /**
+     * Registers an animal carrying the genome.
+     *
+     * @param genome the genome of the animal.
+     * @return the id shared by all animals with an equal genome.
+     */
+    public int acquire(Genome genome) {
+        Integer id = ids.get(genome);
+        if (id == null) {
+            id = allocate(genome);
+            ids.put(genome, id);
+        }
+        increment(id);
+        return id;
+    }
+
+    /**
+     * Unregisters an animal carrying the genome. The id is freed
+     * once no animal carries the genome.
+     *
+     * @param id the id of the genome.
+     * @throws IllegalArgumentException if no animal carries the genome.
+     */
+    public void release(int id) {
+        if (id < 0 || id >= idLimit || counts[id] <= 0)
+            throw new IllegalArgumentException("Genome is not registered!");
+        decrement(id);
+        if (counts[id] == 0) {
+            ids.remove(genomes[id]);
+            genomes[id] = null;
+            if (freeIdCount == freeIds.length) freeIds = Arrays.copyOf(freeIds, freeIds.length * 2);
+            freeIds[freeIdCount++] = id;
+        }
+    }
+
+    /**
+     * @param id the id of the genome.
+     * @return the genome with the id.
+     */
+    public Genome get(int id) {
+        return genomes[id];
+    }
+
+    /**
+     * @param id the id of the genome.
+     * @return the amount of animals carrying the genome.
+     */
+    public int getCount(int id) {
+        return counts[id];
+    }
+
+    /**
+     * @return the amount of distinct genomes carried by at least one animal.
+     */
+    public int size() {
+        return ids.size();
+    }
+
+    /**
+     * @return the id of the most popular genome, or -1 if there are no genomes.
+     */
+    public int getMostPopular() {
+        return maxCount == 0 ? -1 : bucketHeads[maxCount];
+    }
+
+    /**
+     * @return the amount of animals carrying the most popular genome.
+     */
+    public int getMaxCount() {
+        return maxCount;
+    }
+
+    /**
+     * Returns the most popular genomes, starting from the most popular one.
+     * Only buckets of counts down to the k-th genome are visited.
+     *
+     * @param k the maximum amount of returned genomes.
+     * @return ids of at most k most popular genomes.
+     */
+    public List<Integer> getTop(int k) {
+        List<Integer> top = new ArrayList<>(Math.min(k, size()));
+        for (int count = maxCount; count > 0 && top.size() < k; count--) {
+            for (int id = bucketHeads[count]; id >= 0 && top.size() < k; id = next[id]) {
+                top.add(id);
+            }
+        }
+        return top;
+    }
+
+    /**
+     * Reserves an id for a new genome.
+     *
+     * @param genome the genome.
+     * @return the reserved id.
+     */
+    private int allocate(Genome genome) {
+        int id;
+        if (freeIdCount > 0) {
+            id = freeIds[--freeIdCount];
+        } else {
+            if (idLimit == genomes.length) {
+                int capacity = genomes.length * 2;
+                genomes = Arrays.copyOf(genomes, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+                next = Arrays.copyOf(next, capacity);
+                prev = Arrays.copyOf(prev, capacity);
+            }
+            id = idLimit++;
+        }
+        genomes[id] = genome;
+        counts[id] = 0;
+        return id;
+    }
+
+    /**
+     * Moves the genome to the bucket of the next count.
+     *
+     * @param id the id of the genome.
+     */
+    private void increment(int id) {
+        int count = counts[id];
+        if (count > 0) unlink(id, count);
+        counts[id] = ++count;
+        if (count >= bucketHeads.length) {
+            int oldLength = bucketHeads.length;
+            bucketHeads = Arrays.copyOf(bucketHeads, oldLength * 2);
+            Arrays.fill(bucketHeads, oldLength, bucketHeads.length, -1);
+        }
+        link(id, count);
+        if (count > maxCount) maxCount = count;
+    }
+
+    /**
+     * Moves the genome to the bucket of the previous count.
+     *
+     * @param id the id of the genome.
+     */
+    private void decrement(int id) {
+        int count = counts[id];
+        unlink(id, count);
+        counts[id] = --count;
+        if (count > 0) link(id, count);
+        while (maxCount > 0 && bucketHeads[maxCount] < 0) maxCount--;
+    }
+
+    /**
+     * Adds the genome at the beginning of the bucket.
+     *
+     * @param id    the id of the genome.
+     * @param count the count of the bucket.
+     */
+    private void link(int id, int count) {
+        int head = bucketHeads[count];
+        next[id] = head;
+        prev[id] = -1;
+        if (head >= 0) prev[head] = id;
+        bucketHeads[count] = id;
+    }
+
+    /**
+     * Removes the genome from the bucket.
+     *
+     * @param id    the id of the genome.
+     * @param count the count of the bucket.
+     */
+    private void unlink(int id, int count) {
+        if (prev[id] >= 0) next[prev[id]] = next[id];
+        else bucketHeads[count] = next[id];
+        if (next[id] >= 0) prev[next[id]] = prev[id];
+    }
+}
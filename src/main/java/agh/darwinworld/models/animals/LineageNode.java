@@ -0,0 +1,174 @@
+package agh.darwinworld.models.animals;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Node of the lineage graph. Every animal has a node linked to the nodes
+ * of its parents, and the node counts distinct descendants of the animal.
+ * Nodes never reference their children, so dead ancestors without living
+ * descendants are not reachable and are collected by the garbage collector.
+ * <p>
+ * Dead ancestors older than the retained amount of generations are collapsed:
+ * they lose their parents and their population and keep only the summary of
+ * the animal - its id, generation and amount of descendants counted so far.
+ * Links through them are kept only if they lead to a retained animal.
+ */
+public final class LineageNode {
+    private static final AtomicLong STAMPS = new AtomicLong();
+
+    private final long id;
+    private final int generation;
+    private LineageNode mommy;
+    private LineageNode daddy;
+    private int descendants = 0;
+    private long stamp = 0;
+    private boolean tracked;
+    private Population owner;
+    private int slot;
+
+    /**
+     * Creates a node of an animal without known parents.
+     *
+     * @param id    the identifier of the animal.
+     * @param owner the population of the animal.
+     * @param slot  the slot of the animal in the population.
+     */
+    LineageNode(long id, Population owner, int slot) {
+        this(id, 0, owner, slot);
+    }
+
+    /**
+     * Creates a node of an animal.
+     *
+     * @param id         the identifier of the animal.
+     * @param generation the generation of the animal.
+     * @param owner      the population of the animal.
+     * @param slot       the slot of the animal in the population.
+     */
+    private LineageNode(long id, int generation, Population owner, int slot) {
+        this.id = id;
+        this.generation = generation;
+        this.owner = owner;
+        this.slot = slot;
+    }
+
+    /**
+     * Creates a node of an offspring and counts it as a descendant of all its
+     * ancestors. Every ancestor is counted once, even if it is reachable through
+     * both parents. Links to ancestors older than the retained generations
+     * which have no retained animal above them are cut on the way.
+     *
+     * @param id                  the identifier of the offspring.
+     * @param owner               the population of the offspring.
+     * @param slot                the slot of the offspring in the population.
+     * @param mommy               the node of the first parent.
+     * @param daddy               the node of the second parent.
+     * @param retainedGenerations the amount of generations of dead ancestors kept
+     *                            regardless of their descendants.
+     * @return the node of the offspring.
+     */
+    static LineageNode birth(long id, Population owner, int slot, LineageNode mommy, LineageNode daddy,
+                             int retainedGenerations) {
+        int generation = Math.max(mommy.generation, daddy.generation) + 1;
+        LineageNode child = new LineageNode(id, generation, owner, slot);
+        long stamp = STAMPS.incrementAndGet();
+        int oldestRetained = generation - retainedGenerations;
+        if (mommy.visit(stamp, oldestRetained)) child.mommy = mommy;
+        if (daddy.visit(stamp, oldestRetained)) child.daddy = daddy;
+        return child;
+    }
+
+    /**
+     * Counts a new descendant of this node and of its ancestors. The ancestors are
+     * walked with an explicit stack, so the depth of the lineage is not limited by
+     * the stack of the thread. Links are decided in post-order, after both parents
+     * of a node have been visited.
+     *
+     * @param stamp          the stamp of the current birth, used to visit every node once.
+     * @param oldestRetained the oldest generation kept regardless of its descendants.
+     * @return true if the link to this node should be kept.
+     */
+    private boolean visit(long stamp, int oldestRetained) {
+        if (this.stamp == stamp) return tracked;
+        ArrayDeque<LineageNode> path = new ArrayDeque<>();
+        enter(stamp);
+        path.push(this);
+        while (!path.isEmpty()) {
+            LineageNode node = path.peek();
+            LineageNode parent = node.mommy != null && node.mommy.stamp != stamp ? node.mommy
+                    : node.daddy != null && node.daddy.stamp != stamp ? node.daddy : null;
+            if (parent != null) {
+                parent.enter(stamp);
+                path.push(parent);
+                continue;
+            }
+            path.pop();
+            if (node.mommy != null && !node.mommy.tracked) node.mommy = null;
+            if (node.daddy != null && !node.daddy.tracked) node.daddy = null;
+            node.tracked = node.owner != null || node.generation >= oldestRetained
+                    || node.mommy != null || node.daddy != null;
+        }
+        return tracked;
+    }
+
+    /**
+     * Marks the node as visited in the current birth and counts the new descendant.
+     *
+     * @param stamp the stamp of the current birth.
+     */
+    private void enter(long stamp) {
+        this.stamp = stamp;
+        descendants++;
+        if (owner != null) {
+            owner.descendantAdded(slot, descendants);
+            if (!owner.isRetained(slot)) owner = null;
+        }
+    }
+
+    /**
+     * Moves the node to another slot, e.g. when the animal is moved to another population.
+     *
+     * @param owner the new population of the animal, or null if the animal is gone.
+     * @param slot  the new slot of the animal.
+     */
+    void attach(Population owner, int slot) {
+        this.owner = owner;
+        this.slot = slot;
+    }
+
+    /**
+     * @return the identifier of the animal.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return the generation of the animal, 0 for animals without known parents.
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return the amount of distinct descendants of the animal.
+     */
+    public int getDescendants() {
+        return descendants;
+    }
+
+    /**
+     * @return the node of the first parent, or null if it is unknown or no longer tracked.
+     */
+    public LineageNode getMommy() {
+        return mommy;
+    }
+
+    /**
+     * @return the node of the second parent, or null if it is unknown or no longer tracked.
+     */
+    public LineageNode getDaddy() {
+        return daddy;
+    }
+}
@@ -0,0 +1,809 @@
+package agh.darwinworld.models.animals;
+
+import agh.darwinworld.models.CounterRandom;
+import agh.darwinworld.models.MapDirection;
+import agh.darwinworld.models.MoveDirection;
+import agh.darwinworld.models.RandomPurpose;
+import agh.darwinworld.models.listeners.EnergyListener;
+import agh.darwinworld.models.listeners.GridMovementHandler;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Structure-of-arrays store of animal state. Every animal occupies a dense slot
+ * and its state is kept in parallel primitive arrays indexed by that slot.
+ * Slots of removed animals are recycled. {@link Animal} objects are only views
+ * over a slot and are created lazily, when someone asks for them.
+ * <p>
+ * Random numbers of an animal are drawn from streams keyed by the step and the
+ * identifier of the animal, so they do not depend on the order of animals.
+ */
+public class Population {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int DIRECTION_COUNT = MapDirection.values().length;
+    /**
+     * Roll of animals which never skip their moves.
+     */
+    public static final int NO_SKIP_ROLL = 100;
+
+    private final CounterRandom random;
+    private final int genomeLength;
+    private int slotLimit = 0;
+    private int size = 0;
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private int freeSlotCount = 0;
+    private long nextId = 0;
+    private long totalEnergy = 0;
+    private long totalDescendants = 0;
+    private EnergyListener energyListener;
+    private int retainedGenerations = 0;
+    private boolean archive = false;
+    private Population archivePopulation;
+
+    private boolean[] occupied = new boolean[0];
+    private AnimalType[] types = new AnimalType[0];
+    private long[] ids = new long[0];
+    private LineageNode[] lineage = new LineageNode[0];
+    private int[] energy = new int[0];
+    private int[] age = new int[0];
+    private int[] geneIndex = new int[0];
+    private byte[] direction = new byte[0];
+    private int[] childrenAmount = new int[0];
+    private int[] totalEatenPlants = new int[0];
+    private int[] diedAt = new int[0];
+    private int[] genomeIds = new int[0];
+    private final GenomeRegistry genomes = new GenomeRegistry();
+    private final int[] mutationScratch;
+    private Animal[] views = new Animal[0];
+
+    /**
+     * Creates an empty population of animals with genomes of the given length.
+     *
+     * @param random       the random number generator used by the animals.
+     * @param genomeLength the length of the genome of every animal.
+     * @throws IllegalArgumentException if genomeLength < 0.
+     */
+    public Population(Random random, int genomeLength) {
+        this(random, genomeLength, INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates an empty population with room for the given amount of animals.
+     * The population grows when more animals are added.
+     *
+     * @param random       the random number generator used by the animals. Other generators
+     *                     than {@link CounterRandom} only seed the streams of the animals.
+     * @param genomeLength the length of the genome of every animal.
+     * @param capacity     the initial amount of slots.
+     * @throws IllegalArgumentException if genomeLength < 0.
+     */
+    public Population(Random random, int genomeLength, int capacity) {
+        if (genomeLength < 0)
+            throw new IllegalArgumentException("Genome length must be greater than 0!");
+        this.random = random instanceof CounterRandom counter ? counter : new CounterRandom(random.nextLong());
+        this.genomeLength = genomeLength;
+        this.mutationScratch = new int[genomeLength];
+        resize(Math.max(capacity, 1));
+    }
+
+    /**
+     * @return the random number generator used by the animals.
+     */
+    public CounterRandom getRandom() {
+        return random;
+    }
+
+    /**
+     * @return the length of the genome of every animal in the population.
+     */
+    public int getGenomeLength() {
+        return genomeLength;
+    }
+
+    /**
+     * Sets the listener notified about every change of energy of an existing animal.
+     * It is not notified about energy of spawned or released animals.
+     *
+     * @param energyListener the listener, or null to remove it.
+     */
+    public void setEnergyListener(EnergyListener energyListener) {
+        this.energyListener = energyListener;
+    }
+
+    /**
+     * Sets how many generations of dead ancestors keep their links in the lineage graph.
+     * Older dead ancestors are collapsed, unless they lead to a living or observed animal.
+     *
+     * @param retainedGenerations the amount of retained generations.
+     * @throws IllegalArgumentException if retainedGenerations < 0.
+     */
+    public void setRetainedGenerations(int retainedGenerations) {
+        if (retainedGenerations < 0)
+            throw new IllegalArgumentException("Retained generations must be greater than or equal to 0!");
+        this.retainedGenerations = retainedGenerations;
+    }
+
+    /**
+     * @return the amount of generations of dead ancestors kept in the lineage graph.
+     */
+    public int getRetainedGenerations() {
+        return retainedGenerations;
+    }
+
+    /**
+     * @return the amount of occupied slots.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the upper bound (exclusive) of slots that have ever been occupied.
+     */
+    public int getSlotLimit() {
+        return slotLimit;
+    }
+
+    /**
+     * @param slot the slot to check.
+     * @return true if the slot holds an animal, false otherwise.
+     */
+    public boolean isOccupied(int slot) {
+        return slot < slotLimit && occupied[slot];
+    }
+
+    /**
+     * Creates an animal with random genome, direction and current gene.
+     *
+     * @param type   the behaviour of the animal.
+     * @param energy the initial energy of the animal.
+     * @return the slot of the new animal.
+     * @throws IllegalArgumentException if energy < 0.
+     */
+    public int spawn(AnimalType type, int energy) {
+        if (energy < 0)
+            throw new IllegalArgumentException("Energy must be greater than or equal to 0!");
+        int slot = allocate(type);
+        this.energy[slot] = energy;
+        this.totalEnergy += energy;
+        Random stream = random.split(RandomPurpose.SPAWN, 0, ids[slot]);
+        this.direction[slot] = (byte) stream.nextInt(DIRECTION_COUNT);
+        this.genomeIds[slot] = genomes.acquire(Genome.random(stream, genomeLength));
+        this.lineage[slot] = new LineageNode(ids[slot], this, slot);
+        this.geneIndex[slot] = stream.nextInt(genomeLength);
+        return slot;
+    }
+
+    /**
+     * Removes the animal from the population and frees its slot for reuse.
+     * If a view of the animal exists, the animal is moved to the archive shared by
+     * all released animals with views, so the view still reports its last state.
+     *
+     * @param slot the slot of the animal.
+     */
+    public void release(int slot) {
+        if (!isOccupied(slot)) return;
+        totalEnergy -= energy[slot];
+        totalDescendants -= getDescendantsAmount(slot);
+        Animal view = views[slot];
+        if (view != null) {
+            Population archived = getArchive();
+            int archivedSlot = archived.allocate(types[slot]);
+            archived.copyState(this, slot, archivedSlot);
+            archived.bind(archivedSlot, view);
+            view.attach(archived, archivedSlot);
+        } else {
+            lineage[slot].attach(null, -1);
+        }
+        lineage[slot] = null;
+        occupied[slot] = false;
+        types[slot] = null;
+        genomes.release(genomeIds[slot]);
+        views[slot] = null;
+        size--;
+        if (freeSlotCount == freeSlots.length)
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    /**
+     * Returns the population keeping released animals with views, creating it on first use.
+     *
+     * @return the archive of the population.
+     */
+    private Population getArchive() {
+        if (archive) return this;
+        if (archivePopulation == null) {
+            archivePopulation = new Population(random, genomeLength, 1);
+            archivePopulation.archive = true;
+        }
+        return archivePopulation;
+    }
+
+    /**
+     * Returns the view of the animal, creating it if it does not exist yet.
+     *
+     * @param slot the slot of the animal.
+     * @return the view of the animal.
+     */
+    public Animal getAnimal(int slot) {
+        Animal view = views[slot];
+        if (view == null) {
+            view = types[slot].createView(this, slot);
+            views[slot] = view;
+        }
+        return view;
+    }
+
+    /**
+     * @param slot the slot of the animal.
+     * @return the behaviour of the animal.
+     */
+    public AnimalType getType(int slot) {
+        return types[slot];
+    }
+
+    /**
+     * Returns the identifier of the animal. Identifiers are assigned
+     * sequentially in the order in which animals are created, so they
+     * are unique within the population and reproducible for a given seed.
+     *
+     * @param slot the slot of the animal.
+     * @return the identifier of the animal.
+     */
+    public long getId(int slot) {
+        return ids[slot];
+    }
+
+    /**
+     * @param slot the slot of the animal.
+     * @return the energy of the animal.
+     */
+    public int getEnergy(int slot) {
+        return energy[slot];
+    }
+
+    /**
+     * @param slot the slot of the animal.
+     * @return the age of the animal.
+     */
+    public int getAge(int slot) {
+        return age[slot];
+    }
+
+    /**
+     * @param slot the slot of the animal.
+     * @return the number of children of the animal.
+     */
+    public int getChildrenAmount(int slot) {
+        return childrenAmount[slot];
+    }
+
+    /**
+     * @param slot the slot of the animal.
+     * @return the amount of distinct descendants of the animal.
+     */
+    public int getDescendantsAmount(int slot) {
+        return lineage[slot].getDescendants();
+    }
+
+    /**
+     * @param slot the slot of the animal.
+     * @return the node of the animal in the lineage graph.
+     */
+    public LineageNode getLineage(int slot) {
+        return lineage[slot];
+    }
+
+    /**
+     * @param slot the slot of the animal.
+     * @return the current direction of the animal.
+     */
+    public MapDirection getDirection(int slot) {
+        return MapDirection.fromOrdinal(direction[slot]);
+    }
+
+    /**
+     * @param slot the slot of the animal.
+     * @return the current gene the animal will use for the next move.
+     */
+    public MoveDirection getCurrentGene(int slot) {
+        return getGenome(slot).get(geneIndex[slot]);
+    }
+
+    /**
+     * @param slot the slot of the animal.
+     * @return total amount of plants that the animal has eaten.
+     */
+    public int getTotalEatenPlants(int slot) {
+        return totalEatenPlants[slot];
+    }
+
+    /**
+     * @param slot the slot of the animal.
+     * @return the step at which the animal died, or -1 if it is still alive.
+     */
+    public int getDiedAt(int slot) {
+        return diedAt[slot];
+    }
+
+    /**
+     * @return the sum of energy of all animals in the population.
+     */
+    public long getTotalEnergy() {
+        return totalEnergy;
+    }
+
+    /**
+     * @return the sum of amounts of descendants of all animals in the population.
+     */
+    public long getTotalDescendants() {
+        return totalDescendants;
+    }
+
+    /**
+     * @param slot the slot of the animal.
+     * @return true if the animal is dead, false otherwise.
+     */
+    public boolean isDead(int slot) {
+        return energy[slot] < 0;
+    }
+
+    /**
+     * @param slot the slot of the animal.
+     * @return the genome of the animal.
+     */
+    public Genome getGenome(int slot) {
+        return genomes.get(genomeIds[slot]);
+    }
+
+    /**
+     * @param slot the slot of the animal.
+     * @return the id of the genome of the animal in the {@link #getGenomes() registry}.
+     */
+    public int getGenomeId(int slot) {
+        return genomeIds[slot];
+    }
+
+    /**
+     * @return the registry of genomes of animals in the population.
+     */
+    public GenomeRegistry getGenomes() {
+        return genomes;
+    }
+
+    /**
+     * Moves the animal to a new cell based on its current genome and movement logic.
+     *
+     * @param slot    the slot of the animal.
+     * @param handler the handler responsible for determining the new cell and direction.
+     * @param cell    the index of the current cell of the animal.
+     * @param step    the current simulation step at which the movement occurs.
+     * @return the index of the new cell of the animal after the move.
+     * @throws IllegalStateException if the animal is dead or its genome is empty.
+     */
+    public int move(int slot, GridMovementHandler handler, int cell, int step) {
+        MapDirection nextDirection = nextMove(slot, step);
+        if (skipsMove(slot, drawSkipRoll(slot, step))) return cell;
+        return finishMove(slot, handler, cell, nextDirection);
+    }
+
+    /**
+     * Moves the animal like {@link #move(int, GridMovementHandler, int, int)}, but with
+     * the skip roll drawn beforehand with {@link #drawSkipRoll(int, int)}.
+     *
+     * @param slot     the slot of the animal.
+     * @param handler  the handler responsible for determining the new cell and direction.
+     * @param cell     the index of the current cell of the animal.
+     * @param step     the current simulation step at which the movement occurs.
+     * @param skipRoll the roll deciding whether the animal skips its move.
+     * @return the index of the new cell of the animal after the move.
+     * @throws IllegalStateException if the animal is dead or its genome is empty.
+     */
+    public int move(int slot, GridMovementHandler handler, int cell, int step, int skipRoll) {
+        MapDirection nextDirection = nextMove(slot, step);
+        if (skipsMove(slot, skipRoll)) return cell;
+        return finishMove(slot, handler, cell, nextDirection);
+    }
+
+    /**
+     * Moves the animal without notifying its view or the energy listener and without
+     * updating the total energy of the population. Moves of different animals can be
+     * computed concurrently, as long as nothing else changes the population meanwhile.
+     * The caller reports the spent energy with {@link #moveEnergySpent(int)} and updates
+     * energy of cells itself. Animals with views should be moved with
+     * {@link #move(int, GridMovementHandler, int, int, int)} instead.
+     *
+     * @param slot     the slot of the animal.
+     * @param handler  the handler responsible for determining the new cell and direction.
+     * @param cell     the index of the current cell of the animal.
+     * @param step     the current simulation step at which the movement occurs.
+     * @param skipRoll the roll deciding whether the animal skips its move.
+     * @return the index of the new cell of the animal after the move.
+     */
+    public int moveQuietly(int slot, GridMovementHandler handler, int cell, int step, int skipRoll) {
+        int genomeIndex = geneIndex[slot];
+        MoveDirection gene = genomes.get(genomeIds[slot]).get(genomeIndex);
+        MapDirection nextDirection = MapDirection.fromOrdinal(direction[slot]).rotate(gene);
+        geneIndex[slot] = (genomeIndex + 1) % genomeLength;
+        if (--energy[slot] < 0) diedAt[slot] = step;
+        age[slot]++;
+        if (skipsMove(slot, skipRoll)) return cell;
+        int move = handler.move(cell, nextDirection.ordinal());
+        direction[slot] = (byte) GridMovementHandler.directionOf(move);
+        return GridMovementHandler.cellOf(move);
+    }
+
+    /**
+     * Subtracts energy spent by animals moved with {@link #moveQuietly} from the total energy.
+     *
+     * @param amount the amount of quietly moved animals.
+     */
+    public void moveEnergySpent(int amount) {
+        totalEnergy -= amount;
+    }
+
+    /**
+     * Draws the roll deciding whether the animal skips its move in the given step.
+     * The roll depends only on the step, the type and the identifier of the animal, so rolls
+     * of different animals can be drawn in any order and on any thread.
+     *
+     * @param slot the slot of the animal.
+     * @param step the current simulation step.
+     * @return the roll, or {@link #NO_SKIP_ROLL} if the animal never skips its moves.
+     */
+    public int drawSkipRoll(int slot, int step) {
+        AnimalType type = types[slot];
+        if (!type.skipsMoves()) return NO_SKIP_ROLL;
+        return random.nextInt(RandomPurpose.SKIP_MOVE, type.ordinal(), step, ids[slot], 100);
+    }
+
+    /**
+     * Draws the number deciding the breeding priority of the animal among animals
+     * equal in all other respects. It depends only on the step and the identifier
+     * of the animal.
+     *
+     * @param slot the slot of the animal.
+     * @param step the current simulation step.
+     * @return the tie-break number.
+     */
+    public int drawTieBreak(int slot, int step) {
+        return random.nextInt(RandomPurpose.BREEDING_ORDER, step, ids[slot]);
+    }
+
+    /**
+     * @param slot the slot of the animal.
+     * @return true if the view of the animal has been created, false otherwise.
+     */
+    public boolean hasView(int slot) {
+        return views[slot] != null;
+    }
+
+    /**
+     * Moves the animal in the given direction and updates its direction.
+     *
+     * @param slot          the slot of the animal.
+     * @param handler       the handler responsible for determining the new cell and direction.
+     * @param cell          the index of the current cell of the animal.
+     * @param nextDirection the direction of the move.
+     * @return the index of the new cell of the animal.
+     */
+    private int finishMove(int slot, GridMovementHandler handler, int cell, MapDirection nextDirection) {
+        int move = handler.move(cell, nextDirection.ordinal());
+        int newCell = GridMovementHandler.cellOf(move);
+        updateDirection(slot, GridMovementHandler.directionOf(move));
+        Animal view = observer(slot, AnimalProperty.POSITION);
+        if (view != null) view.notifyMove(handler.positionOf(cell), handler.positionOf(newCell));
+        return newCell;
+    }
+
+    /**
+     * Increases the animal's energy by the specified amount and updates the count of eaten plants.
+     *
+     * @param slot   the slot of the animal.
+     * @param energy the amount of energy to add. Must be greater than or equal to 0.
+     * @param step   the current simulation step at which this action occurs.
+     * @throws IllegalArgumentException if {@code energy} is less than 0.
+     */
+    public void eat(int slot, int energy, int step) {
+        if (isDead(slot)) return;
+        if (energy < 0)
+            throw new IllegalArgumentException("Energy added must be greater than or equal to 0!");
+        totalEatenPlants[slot]++;
+        Animal view = observer(slot, AnimalProperty.TOTAL_EATEN_PLANTS);
+        if (view != null)
+            view.firePropertyChange(AnimalProperty.TOTAL_EATEN_PLANTS, totalEatenPlants[slot] - 1, totalEatenPlants[slot]);
+        updateEnergy(slot, this.energy[slot] + energy, step);
+    }
+
+    /**
+     * Forces the animal to be marked as dead by reducing its energy below zero.
+     *
+     * @param slot the slot of the animal.
+     * @param step the current simulation step at which this action occurs.
+     */
+    public void kill(int slot, int step) {
+        updateEnergy(slot, -1, step);
+    }
+
+    /**
+     * Rotates the animal according to its current gene, selects the next gene,
+     * and ages the animal, which costs one unit of energy.
+     *
+     * @param slot the slot of the animal.
+     * @param step the current simulation step.
+     * @return the direction of the next move.
+     * @throws IllegalStateException if the animal is dead or its genome is empty.
+     */
+    MapDirection nextMove(int slot, int step) {
+        if (isDead(slot))
+            throw new IllegalStateException("Cannot move animal that is dead!");
+        if (genomeLength == 0)
+            throw new IllegalStateException("Cannot move animal with empty genome!");
+        Genome genome = getGenome(slot);
+        MoveDirection gene = genome.get(geneIndex[slot]);
+        MapDirection nextDirection = MapDirection.fromOrdinal(direction[slot]).rotate(gene);
+        geneIndex[slot] = (geneIndex[slot] + 1) % genomeLength;
+        Animal view = observer(slot, AnimalProperty.CURRENT_GENE);
+        if (view != null)
+            view.firePropertyChange(AnimalProperty.CURRENT_GENE, gene, genome.get(geneIndex[slot]));
+        updateEnergy(slot, energy[slot] - 1, step);
+        age[slot]++;
+        view = observer(slot, AnimalProperty.AGE);
+        if (view != null) view.firePropertyChange(AnimalProperty.AGE, age[slot] - 1, age[slot]);
+        return nextDirection;
+    }
+
+    /**
+     * Decides whether an ageing animal skips its move. The older the animal,
+     * the higher the probability, up to 80%.
+     *
+     * @param slot     the slot of the animal.
+     * @param skipRoll the roll drawn with {@link #drawSkipRoll(int, int)}.
+     * @return true if the animal skips its move, false otherwise.
+     */
+    boolean skipsMove(int slot, int skipRoll) {
+        return skipRoll < Math.min(age[slot], 80);
+    }
+
+    /**
+     * Updates animal's energy and notifies its view about the change.
+     *
+     * @param slot      the slot of the animal.
+     * @param newEnergy the new energy of the animal.
+     * @param step      the current simulation step.
+     */
+    void updateEnergy(int slot, int newEnergy, int step) {
+        int oldEnergy = energy[slot];
+        int oldDiedAt = diedAt[slot];
+        energy[slot] = newEnergy;
+        totalEnergy += newEnergy - oldEnergy;
+        if (energyListener != null) energyListener.energyChanged(slot, oldEnergy, newEnergy);
+        if (newEnergy < 0) diedAt[slot] = step;
+        Animal view = views[slot];
+        if (view != null) view.onEnergyChanged(oldEnergy, newEnergy, oldDiedAt, step);
+    }
+
+    /**
+     * Updates animal's direction and notifies its view about the change.
+     *
+     * @param slot         the slot of the animal.
+     * @param newDirection the ordinal of the new direction.
+     */
+    void updateDirection(int slot, int newDirection) {
+        int oldDirection = direction[slot];
+        direction[slot] = (byte) newDirection;
+        Animal view = observer(slot, AnimalProperty.DIRECTION);
+        if (view != null)
+            view.firePropertyChange(AnimalProperty.DIRECTION, MapDirection.fromOrdinal(oldDirection), MapDirection.fromOrdinal(newDirection));
+    }
+
+    /**
+     * Breeds two animals of this population and places the offspring in it.
+     * Both parents lose the breeding cost and the child gets genes of both of them,
+     * proportionally to their energy.
+     *
+     * @param type                  the behaviour of the offspring.
+     * @param mommySlot             the slot of the first parent.
+     * @param daddySlot             the slot of the second parent.
+     * @param breedingEnergyCost    the energy cost for breeding.
+     * @param minimalBreedingEnergy the minimal energy required for breeding.
+     * @param minMutations          the minimum number of genome mutations.
+     * @param maxMutations          the maximum number of genome mutations.
+     * @param step                  the current simulation step.
+     * @return the slot of the offspring.
+     * @throws IllegalArgumentException if any parent is dead or lacks energy.
+     */
+    public int breed(AnimalType type, int mommySlot, int daddySlot, int breedingEnergyCost,
+                     int minimalBreedingEnergy, int minMutations, int maxMutations, int step) {
+        return breed(type, this, mommySlot, daddySlot, breedingEnergyCost, minimalBreedingEnergy,
+                minMutations, maxMutations, step);
+    }
+
+    /**
+     * Breeds an animal of possibly another population with an animal of this one
+     * and places the offspring in this population.
+     *
+     * @param type                  the behaviour of the offspring.
+     * @param mommies               the population of the first parent.
+     * @param mommySlot             the slot of the first parent.
+     * @param daddySlot             the slot of the second parent in this population.
+     * @param breedingEnergyCost    the energy cost for breeding.
+     * @param minimalBreedingEnergy the minimal energy required for breeding.
+     * @param minMutations          the minimum number of genome mutations.
+     * @param maxMutations          the maximum number of genome mutations.
+     * @param step                  the current simulation step.
+     * @return the slot of the offspring.
+     * @throws IllegalArgumentException if any parent is dead, lacks energy, or genome lengths differ.
+     */
+    int breed(AnimalType type, Population mommies, int mommySlot, int daddySlot, int breedingEnergyCost,
+              int minimalBreedingEnergy, int minMutations, int maxMutations, int step) {
+        if (mommies.genomeLength != genomeLength)
+            throw new IllegalArgumentException("Parents must have genomes of the same length!");
+        if (mommies.isDead(mommySlot) || isDead(daddySlot))
+            throw new IllegalArgumentException("Provided animal cannot be dead!");
+        if (mommies.energy[mommySlot] < minimalBreedingEnergy || energy[daddySlot] < minimalBreedingEnergy)
+            throw new IllegalArgumentException("Provided animal does not have enough energy!");
+
+        mommies.updateEnergy(mommySlot, mommies.energy[mommySlot] - breedingEnergyCost, step);
+        updateEnergy(daddySlot, energy[daddySlot] - breedingEnergyCost, step);
+
+        int parentsEnergy = mommies.energy[mommySlot] + energy[daddySlot];
+        int mommyGenomeAmount = Math.round(genomeLength * ((float) mommies.energy[mommySlot] / parentsEnergy));
+
+        int child = allocate(type);
+        Random stream = random.split(RandomPurpose.BREED, step, ids[child]);
+        boolean mommyLeft = stream.nextBoolean();
+        Genome genome = Genome.crossover(mommies.getGenome(mommySlot), getGenome(daddySlot), mommyGenomeAmount, mommyLeft)
+                .mutate(stream, minMutations, maxMutations, mutationScratch);
+
+        genomeIds[child] = genomes.acquire(genome);
+        energy[child] = breedingEnergyCost * 2;
+        totalEnergy += energy[child];
+
+        direction[child] = (byte) stream.nextInt(DIRECTION_COUNT);
+        geneIndex[child] = stream.nextInt(genomeLength);
+
+        mommies.increaseChildrenAmount(mommySlot);
+        increaseChildrenAmount(daddySlot);
+        lineage[child] = LineageNode.birth(ids[child], this, child, mommies.lineage[mommySlot], lineage[daddySlot],
+                retainedGenerations);
+        return child;
+    }
+
+    /**
+     * Updates animal's children amount and notifies its view about the change.
+     *
+     * @param slot the slot of the animal.
+     */
+    private void increaseChildrenAmount(int slot) {
+        childrenAmount[slot]++;
+        Animal view = observer(slot, AnimalProperty.CHILDREN_AMOUNT);
+        if (view != null)
+            view.firePropertyChange(AnimalProperty.CHILDREN_AMOUNT, childrenAmount[slot] - 1, childrenAmount[slot]);
+    }
+
+    /**
+     * Returns the view of the animal if someone listens to the property.
+     *
+     * @param slot     the slot of the animal.
+     * @param property the property to check.
+     * @return the view of the animal, or null if the property is not observed.
+     */
+    private Animal observer(int slot, AnimalProperty property) {
+        Animal view = views[slot];
+        return view != null && view.isObserved(property) ? view : null;
+    }
+
+    /**
+     * Animals of a population are retained in the lineage graph as long as they
+     * occupy their slots. Released animals are archived in a shared population
+     * and are retained only while someone listens to their views, e.g. when
+     * the animal is selected in the UI.
+     *
+     * @param slot the slot of the animal.
+     * @return true if the lineage node of the animal should be kept up to date.
+     */
+    boolean isRetained(int slot) {
+        if (!isOccupied(slot)) return false;
+        if (!archive) return true;
+        Animal view = views[slot];
+        return view != null && view.hasListeners();
+    }
+
+    /**
+     * Counts a new descendant of the animal and notifies its view about the change.
+     *
+     * @param slot        the slot of the animal.
+     * @param descendants the new amount of descendants of the animal.
+     */
+    void descendantAdded(int slot, int descendants) {
+        totalDescendants++;
+        Animal view = observer(slot, AnimalProperty.DESCENDANTS_AMOUNT);
+        if (view != null)
+            view.firePropertyChange(AnimalProperty.DESCENDANTS_AMOUNT, descendants - 1, descendants);
+    }
+
+    /**
+     * Registers the view of the animal.
+     *
+     * @param slot the slot of the animal.
+     * @param view the view of the animal.
+     */
+    void bind(int slot, Animal view) {
+        views[slot] = view;
+    }
+
+    /**
+     * Reserves a slot for a new animal, reusing a freed one if possible.
+     *
+     * @param type the behaviour of the animal.
+     * @return the reserved slot with cleared state.
+     */
+    int allocate(AnimalType type) {
+        int slot;
+        if (freeSlotCount > 0) {
+            slot = freeSlots[--freeSlotCount];
+        } else {
+            if (slotLimit == occupied.length) resize(occupied.length * 2);
+            slot = slotLimit++;
+        }
+        occupied[slot] = true;
+        types[slot] = type;
+        ids[slot] = nextId++;
+        energy[slot] = 0;
+        age[slot] = 0;
+        geneIndex[slot] = 0;
+        direction[slot] = 0;
+        childrenAmount[slot] = 0;
+        totalEatenPlants[slot] = 0;
+        diedAt[slot] = -1;
+        size++;
+        return slot;
+    }
+
+    /**
+     * Copies the whole state of an animal from another population.
+     *
+     * @param source     the population of the source animal.
+     * @param sourceSlot the slot of the source animal.
+     * @param slot       the target slot in this population.
+     */
+    private void copyState(Population source, int sourceSlot, int slot) {
+        ids[slot] = source.ids[sourceSlot];
+        energy[slot] = source.energy[sourceSlot];
+        totalEnergy += energy[slot];
+        lineage[slot] = source.lineage[sourceSlot];
+        lineage[slot].attach(this, slot);
+        totalDescendants += lineage[slot].getDescendants();
+        age[slot] = source.age[sourceSlot];
+        geneIndex[slot] = source.geneIndex[sourceSlot];
+        direction[slot] = source.direction[sourceSlot];
+        childrenAmount[slot] = source.childrenAmount[sourceSlot];
+        totalEatenPlants[slot] = source.totalEatenPlants[sourceSlot];
+        diedAt[slot] = source.diedAt[sourceSlot];
+        genomeIds[slot] = genomes.acquire(source.getGenome(sourceSlot));
+    }
+
+    /**
+     * Grows all arrays to the given capacity.
+     *
+     * @param capacity the new capacity.
+     */
+    private void resize(int capacity) {
+        occupied = Arrays.copyOf(occupied, capacity);
+        types = Arrays.copyOf(types, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        lineage = Arrays.copyOf(lineage, capacity);
+        energy = Arrays.copyOf(energy, capacity);
+        age = Arrays.copyOf(age, capacity);
+        geneIndex = Arrays.copyOf(geneIndex, capacity);
+        direction = Arrays.copyOf(direction, capacity);
+        childrenAmount = Arrays.copyOf(childrenAmount, capacity);
+        totalEatenPlants = Arrays.copyOf(totalEatenPlants, capacity);
+        diedAt = Arrays.copyOf(diedAt, capacity);
+        genomeIds = Arrays.copyOf(genomeIds, capacity);
+        views = Arrays.copyOf(views, capacity);
+    }
+}
@@ -0,0 +1,15 @@
+package agh.darwinworld.models.listeners;
+
+/**
+ * Interface listening for changes of energy of animals in a population.
+ */
+public interface EnergyListener {
+    /**
+     * Called whenever energy of an animal changes.
+     *
+     * @param slot      the slot of the animal in the population.
+     * @param oldEnergy the energy before the change.
+     * @param newEnergy the energy after the change.
+     */
+    void energyChanged(int slot, int oldEnergy, int newEnergy);
+}
@@ -0,0 +1,61 @@
+package agh.darwinworld.models.listeners;
+
+import agh.darwinworld.models.Vector2D;
+
+/**
+ * Allocation-free variant of {@link MovementHandler} working on cell indexes
+ * and direction ordinals. Result of the move is packed into a single {@code int}:
+ * the upper bits hold the new cell index, while the lowest three bits hold
+ * the ordinal of the new direction.
+ */
+public interface GridMovementHandler {
+    /**
+     * Amount of bits used by the direction in a packed move.
+     */
+    int DIRECTION_BITS = 3;
+
+    /**
+     * Computes the new cell and direction based on the current cell
+     * and a specified movement direction.
+     *
+     * @param cell      the index of the current cell of the entity.
+     * @param direction the ordinal of the direction in which the entity intends to move.
+     * @return the new cell and direction packed with {@link #pack(int, int)}.
+     */
+    int move(int cell, int direction);
+
+    /**
+     * Returns the position of the cell.
+     *
+     * @param cell the index of the cell.
+     * @return the position of the cell.
+     */
+    Vector2D positionOf(int cell);
+
+    /**
+     * Packs cell index and direction ordinal into a single value.
+     *
+     * @param cell      the index of the cell.
+     * @param direction the ordinal of the direction.
+     * @return packed move.
+     */
+    static int pack(int cell, int direction) {
+        return (cell << DIRECTION_BITS) | direction;
+    }
+
+    /**
+     * @param move packed move.
+     * @return the index of the cell stored in the packed move.
+     */
+    static int cellOf(int move) {
+        return move >>> DIRECTION_BITS;
+    }
+
+    /**
+     * @param move packed move.
+     * @return the ordinal of the direction stored in the packed move.
+     */
+    static int directionOf(int move) {
+        return move & ((1 << DIRECTION_BITS) - 1);
+    }
+}
@@ -0,0 +1,22 @@
+package agh.darwinworld.models.listeners;
+
+/**
+ * Interface receiving timings of simulation steps. It is called on the simulation
+ * thread after every step, so implementations should only record the values.
+ */
+@FunctionalInterface
+public interface SimulationInstrumentation {
+    /**
+     * Instrumentation which ignores all timings.
+     */
+    SimulationInstrumentation NONE = (step, durationNanos) -> {
+    };
+
+    /**
+     * Called whenever a simulation step has been executed.
+     *
+     * @param step          the number of the executed step.
+     * @param durationNanos the duration of the step in nanoseconds.
+     */
+    void stepExecuted(int step, long durationNanos);
+}
@@ -1,5 +1,6 @@
 package agh.darwinworld.models.listeners;
 
+import agh.darwinworld.models.FireChangeSet;
 import agh.darwinworld.models.MoveDirection;
 import agh.darwinworld.models.Vector2D;
 import javafx.util.Pair;
@@ -55,4 +56,20 @@ public interface SimulationStepListener {
      *                 to or less than 0, it is extinguished.
      */
     default void updateFire(Vector2D position, int length) {};
+
+    /**
+     * Called once per step with all cells changed by fire. Burning cells lose their
+     * plants and animals. By default, every change is passed to {@link #updateFire},
+     * {@link #updateAnimal} and {@link #removePlant}.
+     *
+     * @param changes the cells changed by fire in the current step.
+     */
+    default void updateFires(FireChangeSet changes) {
+        for (int i = 0; i < changes.size(); i++) {
+            Vector2D position = changes.getPosition(i);
+            updateFire(position, changes.getLength(i));
+            updateAnimal(position, 0, changes.getMaxAnimalAmount(), 0);
+            removePlant(position);
+        }
+    }
 }
@@ -2,34 +2,102 @@ package agh.darwinworld.models.maps;
 
 import agh.darwinworld.models.*;
 import agh.darwinworld.models.animals.Animal;
-import agh.darwinworld.models.animals.AnimalType;
+import agh.darwinworld.models.animals.GenomeRegistry;
+import agh.darwinworld.models.animals.Population;
+import agh.darwinworld.models.listeners.GridMovementHandler;
 import agh.darwinworld.models.listeners.MovementHandler;
 import agh.darwinworld.models.listeners.SimulationStepListener;
 import javafx.util.Pair;
 
+import java.io.Serial;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
- * Base class for all map implementations.
+ * Base class for all map implementations. Movement is implemented on cell
+ * indexes by subclasses, while the {@link MovementHandler} variant is kept
+ * as an adapter on top of it.
+ * <p>
+ * Moving, feeding and breeding of large populations are split into two parts.
+ * The decisions - new cells of animals, eating animals and parents - only read
+ * the state of the map and are computed in parallel: new cells for ranges of slots,
+ * eating animals for ranges of the plant list and parents for tiles of whole rows.
+ * They are then applied on the calling thread in a fixed order, so the result does
+ * not depend on the amount of threads and animals crossing borders of tiles, including
+ * the seam of the {@link WorldMap}, need no special treatment.
+ * <p>
+ * Only the decisions run in parallel. Removing dead animals, eating, births with their
+ * mutations and growing plants always run on the calling thread, as they allocate slots
+ * of the population, update the free cell indexes of whole regions or draw from the
+ * sequential random stream of the map.
  */
-public abstract class AbstractMap implements MovementHandler {
+public abstract class AbstractMap implements MovementHandler, GridMovementHandler {
+    /**
+     * Minimal amount of animals for which phases of the step are computed in parallel.
+     */
+    public static final int PARALLEL_STEP_THRESHOLD = 4096;
+    private static final int MOVE_CHUNK = 1024;
+    private static final int FEED_CHUNK = 1024;
+    private static final int TILE_CELLS = 4096;
+    private static final int NO_PARENTS = -1;
+    private static final int MOVED_WITH_VIEW = -1;
+
     protected int deadCount = 0;
     protected int totalLifetime = 0;
-    protected HashMap<Vector2D, ArrayList<Animal>> animals = new HashMap<>();
-    protected final HashSet<Vector2D> plants = new HashSet<>();
+    protected GridStorage grid;
+    protected Population population;
+    protected CellIndex preferredFreeCells;
+    protected CellIndex otherFreeCells;
+    protected int[] transitions;
     protected SimulationParameters params;
     protected final List<SimulationStepListener> listeners = new ArrayList<>();
     protected Random random;
-    protected Pair<MoveDirection[], Integer> popularGenome = popularGenome();
+    protected Pair<MoveDirection[], Integer> popularGenome = new Pair<>(null, 0);
+    private int[] touchedCells = new int[0];
+    private boolean[] touched = new boolean[0];
+    private ForkJoinPool stepPool = ForkJoinPool.commonPool();
+    protected int parallelStepThreshold = PARALLEL_STEP_THRESHOLD;
+    private int[] moveTargets = new int[0];
+    private int[] eaters = new int[0];
+    private int[] mommies = new int[0];
+    private int[] daddies = new int[0];
+    private final ThreadLocal<ParentSelector> parentSelectors = ThreadLocal.withInitial(ParentSelector::new);
 
     /**
-     * Sets the simulation parameters and initializes the random number generator.
+     * Sets the simulation parameters, initializes the counter-based random number generator,
+     * allocates the grid and population storages, indexes cells free of plants and precomputes
+     * the transition table of moves.
      *
      * @param params The simulation parameters.
      */
     public void setParameters(SimulationParameters params) {
         this.params = params;
-        random = new Random(params.seed());
+        random = new CounterRandom(params.seed());
+        grid = new GridStorage(params.width(), params.height());
+        population = new Population(random, params.animalGenomeLength());
+        population.setRetainedGenerations(params.retainedGenerations());
+        population.setEnergyListener((slot, oldEnergy, newEnergy) -> {
+            int cell = grid.cellOf(slot);
+            if (cell >= 0) grid.addEnergy(cell, newEnergy - oldEnergy);
+        });
+        preferredFreeCells = new CellIndex(grid.getCellCount());
+        otherFreeCells = new CellIndex(grid.getCellCount());
+        for (int cell = 0; cell < grid.getCellCount(); cell++) {
+            freeCellsOf(cell).add(cell);
+        }
+        int directionCount = MapDirection.values().length;
+        transitions = new int[grid.getCellCount() << GridMovementHandler.DIRECTION_BITS];
+        for (int cell = 0; cell < grid.getCellCount(); cell++) {
+            for (int direction = 0; direction < directionCount; direction++) {
+                transitions[GridMovementHandler.pack(cell, direction)] = computeMove(cell, direction);
+            }
+        }
+        touched = new boolean[grid.getCellCount()];
+        touchedCells = new int[grid.getCellCount()];
+        eaters = new int[grid.getCellCount()];
+        mommies = new int[grid.getCellCount()];
+        daddies = new int[grid.getCellCount()];
     }
 
     /**
@@ -38,17 +106,35 @@ public abstract class AbstractMap implements MovementHandler {
      * @return Maximum number of animals at a single position.
      */
     public int getMaxAnimalAmount() {
-        return animals.values().stream().map(ArrayList::size).max(Integer::compareTo).orElse(0);
+        return grid.getMaxAnimalAmount();
     }
 
     /**
-     * Retrieves the list of animals at a specified position.
+     * Gets the number of animals at a specified position without creating their views.
+     *
+     * @param position The position to query.
+     * @return Number of animals at the given position.
+     */
+    public int getAnimalAmountOnPosition(Vector2D position) {
+        return grid.contains(position) ? grid.getAnimalAmount(grid.indexOf(position)) : 0;
+    }
+
+    /**
+     * Retrieves the list of animals at a specified position. Views of the animals are
+     * created on demand, so it should be called only when an individual is selected,
+     * and only between steps if the map is stepped on another thread.
      *
      * @param position The position to query.
      * @return A list of animals at the given position.
      */
     public List<Animal> getAnimalsOnPosition(Vector2D position) {
-        return animals.containsKey(position) ? animals.get(position) : new ArrayList<>();
+        if (!grid.contains(position)) return Collections.emptyList();
+        int cell = grid.indexOf(position);
+        List<Animal> animals = new ArrayList<>(grid.getAnimalAmount(cell));
+        for (int slot = grid.firstAnimal(cell); slot >= 0; slot = grid.nextAnimal(slot)) {
+            animals.add(population.getAnimal(slot));
+        }
+        return animals;
     }
 
     /**
@@ -58,7 +144,7 @@ public abstract class AbstractMap implements MovementHandler {
      * @return True if a plant exists, false otherwise.
      */
     public boolean isPlantOnPosition(Vector2D position) {
-        return plants.contains(position);
+        return grid.contains(position) && grid.hasPlant(grid.indexOf(position));
     }
 
     /**
@@ -67,7 +153,7 @@ public abstract class AbstractMap implements MovementHandler {
      * @return Total animal count.
      */
     public int animalCount() {
-        return animals.values().stream().mapToInt(List::size).sum();
+        return grid.getAnimalCount();
     }
 
     /**
@@ -76,7 +162,7 @@ public abstract class AbstractMap implements MovementHandler {
      * @return Total plant count.
      */
     public int plantCount() {
-        return plants.size();
+        return grid.getPlantCount();
     }
 
     /**
@@ -97,31 +183,38 @@ public abstract class AbstractMap implements MovementHandler {
      * @return The count of empty fields.
      */
     public int emptyFieldCount() {
-        HashSet<Vector2D> allFields = new HashSet<>(plants);
-        allFields.addAll(animals.keySet());
-        return params.width() * params.height() - allFields.size();
+        return grid.getEmptyCellCount();
     }
 
     /**
      * Finds the most common genome among animals and its frequency.
+     * Genomes are counted by the population on every birth and death,
+     * so this method does not scan animals.
      *
      * @return A pair of the most common genome and its frequency.
      */
     public Pair<MoveDirection[], Integer> popularGenome() {
-        HashMap<List<MoveDirection>, Integer> genomeCount = new HashMap<>();
-        for (List<Animal> animalList : animals.values()) {
-            for (Animal animal : animalList) {
-                MoveDirection[] genome = animal.getGenome();
-                genomeCount.put(Arrays.asList(genome), genomeCount.getOrDefault(Arrays.asList(genome), 0) + 1);
-            }
-        }
-        Map.Entry<List<MoveDirection>, Integer> maxEntry = genomeCount.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .orElse(null);
+        if (population == null) return new Pair<>(null, 0);
+        GenomeRegistry genomes = population.getGenomes();
+        int id = genomes.getMostPopular();
+        if (id < 0) return new Pair<>(null, 0);
+        return new Pair<>(genomes.get(id).toArray(), genomes.getCount(id));
+    }
 
-        int count = (maxEntry != null) ? maxEntry.getValue() : 0;
-        MoveDirection[] genome = (maxEntry != null) ? maxEntry.getKey().toArray(new MoveDirection[0]) : null;
-        return new Pair<>(genome, count);
+    /**
+     * Finds the most common genomes among animals and their frequencies.
+     *
+     * @param k The maximum number of returned genomes.
+     * @return Pairs of genomes and their frequencies, starting from the most common one.
+     */
+    public List<Pair<MoveDirection[], Integer>> topGenomes(int k) {
+        if (population == null) return Collections.emptyList();
+        GenomeRegistry genomes = population.getGenomes();
+        List<Pair<MoveDirection[], Integer>> top = new ArrayList<>();
+        for (int id : genomes.getTop(k)) {
+            top.add(new Pair<>(genomes.get(id).toArray(), genomes.getCount(id)));
+        }
+        return top;
     }
 
     /**
@@ -140,26 +233,19 @@ public abstract class AbstractMap implements MovementHandler {
      * @return Average descendant count.
      */
     public int averageDescendantsAmount() {
-        if (animalCount() == 0) return 0;
-        int childrenAmount = 0;
-        for (List<Animal> animalList : animals.values()) {
-            for (Animal animal : animalList) {
-                childrenAmount += animal.getDescendantsAmount();
-            }
-        }
-        return childrenAmount / animalCount();
+        int animalCount = animalCount();
+        if (animalCount == 0) return 0;
+        return (int) (population.getTotalDescendants() / animalCount);
     }
 
+    /**
+     * Calculates the average energy of animals.
+     *
+     * @return Average energy, or 0 if there are no animals.
+     */
     public int averageEnergy() {
-        int totalEnergy = 0;
-        int animalCount = 0;
-        for (List<Animal> animalList : animals.values()) {
-            for (Animal animal : animalList) {
-                totalEnergy += animal.getEnergy();
-                animalCount++;
-            }
-        }
-        return animalCount == 0 ? 0 : totalEnergy / animalCount;
+        int animalCount = animalCount();
+        return animalCount == 0 ? 0 : (int) (population.getTotalEnergy() / animalCount);
     }
 
     /**
@@ -171,167 +257,399 @@ public abstract class AbstractMap implements MovementHandler {
         for (int i = 0; i < amount; i++) {
             int x = this.random.nextInt(params.width());
             int y = this.random.nextInt(params.height());
-            Vector2D v = new Vector2D(x, y);
-            Animal animal = params.animalType().createAnimal(random, params.animalGenomeLength(), params.startingEnergyAmount());
-            animals.computeIfAbsent(v, k -> new ArrayList<>());
-            animals.get(v).add(animal);
+            int slot = population.spawn(params.animalType(), params.startingEnergyAmount());
+            placeAnimal(grid.indexOf(x, y), slot);
         }
     }
 
     /**
-     * Handles the breeding of animals at each position.
+     * Handles the breeding of animals at each position. Parents are selected
+     * for tiles of the map in parallel, then offspring are born on the calling
+     * thread in the order of cells.
      *
      * @param step the current simulation step
      */
     protected void breedAnimals(int step) {
-        for (Vector2D position : animals.keySet()) {
-            List<Animal> topAnimals = animals.get(position).stream()
-                    .sorted(Comparator
-                            .comparingInt(Animal::getEnergy).reversed()
-                            .thenComparingInt(Animal::getAge).reversed()
-                            .thenComparingInt(Animal::getChildrenAmount).reversed()
-                            .thenComparing(a -> random.nextInt()))
-                    .limit(2)
-                    .toList();
-
-            if (topAnimals.size() == 2 && topAnimals.getLast().getEnergy() >= params.minimumBreedingEnergy()) {
-                Animal baby = params.animalType().createAnimal(topAnimals.getFirst(), topAnimals.getLast(), params.breedingEnergyCost(),
-                        params.minimumBreedingEnergy(), params.minimumMutationAmount(), params.maximumMutationAmount(), step);
-                animals.get(position).add(baby);
-                final int max = getMaxAnimalAmount();
-                listeners.forEach(listener -> listener.updateAnimal(
-                        position,
-                        animals.get(position).size(),
-                        max, getEnergyOnPosition(position)));
-            }
+        int cellCount = grid.getCellCount();
+        int tileCells = Math.max(1, TILE_CELLS / grid.getWidth()) * grid.getWidth();
+        runPhase(cellCount, tileCells, (from, to) -> selectParents(from, to, step));
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (grid.getAnimalAmount(cell) < 2 || mommies[cell] == NO_PARENTS) continue;
+            int baby = population.breed(params.animalType(), mommies[cell], daddies[cell], params.breedingEnergyCost(),
+                    params.minimumBreedingEnergy(), params.minimumMutationAmount(), params.maximumMutationAmount(), step);
+            placeAnimal(cell, baby);
+            notifyAnimalUpdate(cell, getMaxAnimalAmount());
         }
     }
 
     /**
-     * Feeds animals at positions with plants.
+     * Selects parents on cells of a tile which have enough energy to breed,
+     * using the selector of the current thread.
+     *
+     * @param from the first cell of the tile (inclusive).
+     * @param to   the last cell of the tile (exclusive).
+     * @param step the current simulation step.
+     */
+    private void selectParents(int from, int to, int step) {
+        ParentSelector selector = parentSelectors.get();
+        for (int cell = from; cell < to; cell++) {
+            if (grid.getAnimalAmount(cell) < 2) continue;
+            mommies[cell] = NO_PARENTS;
+            if (!selector.select(grid, population, step, cell)) continue;
+            if (population.getEnergy(selector.getSecond()) < params.minimumBreedingEnergy()) continue;
+            mommies[cell] = selector.getFirst();
+            daddies[cell] = selector.getSecond();
+        }
+    }
+
+    /**
+     * Feeds animals at positions with plants. Eating animals are chosen for ranges
+     * of the plant list in parallel, then plants are eaten on the calling thread
+     * from the last one, so eaten plants can be removed from the grid while iterating.
      *
      * @param step the current simulation step
      */
     protected void feedAnimals(int step) {
-        List<Vector2D> toRemove = new ArrayList<>();
-        for (Vector2D position : plants) {
-            if (!animals.containsKey(position)) continue;
-            Animal topAnimal = animals.get(position).stream().max(Comparator.comparingInt(Animal::getEnergy)).orElseThrow();
-            topAnimal.eat(params.plantEnergyAmount(), step);
-            toRemove.add(position);
+        runPhase(grid.getPlantCount(), FEED_CHUNK, this::chooseEaters);
+        for (int i = grid.getPlantCount() - 1; i >= 0; i--) {
+            int cell = grid.getPlant(i);
+            if (grid.getAnimalAmount(cell) == 0) continue;
+            population.eat(eaters[cell], params.plantEnergyAmount(), step);
+            removePlant(cell);
+            Vector2D position = grid.positionOf(cell);
             listeners.forEach(listener -> listener.removePlant(position));
         }
-        toRemove.forEach(plants::remove);
+    }
+
+    /**
+     * Chooses the animal with the most energy on cells of a range of plants.
+     *
+     * @param from the first plant of the range (inclusive).
+     * @param to   the last plant of the range (exclusive).
+     */
+    private void chooseEaters(int from, int to) {
+        for (int i = from; i < to; i++) {
+            int cell = grid.getPlant(i);
+            int topAnimal = grid.firstAnimal(cell);
+            if (topAnimal < 0) continue;
+            for (int slot = grid.nextAnimal(topAnimal); slot >= 0; slot = grid.nextAnimal(slot)) {
+                if (population.getEnergy(slot) > population.getEnergy(topAnimal)) topAnimal = slot;
+            }
+            eaters[cell] = topAnimal;
+        }
     }
 
     /**
      * Grows plants on the map in the preferred and non-preferred regions.
+     * 80% of plants grow in preferred rows and 20% in the other ones.
      *
      * @param amount the total number of plants to grow
      */
     public void growPlants(int amount) {
-        int equatorHeight = Math.round(params.height() * 0.2f);
-        int barHeight = Math.round((params.height() - equatorHeight) / 2f);
-        List<Vector2D> plantCandidates = new ArrayList<>();
-        for (int i = 0; i < params.width(); i++) {
-            for (int j = 0; j < barHeight; j++) {
-                if (!plants.contains(new Vector2D(i, j))) {
-                    plantCandidates.add(new Vector2D(i, j));
-                }
-            }
-            for (int j = barHeight + equatorHeight; j < params.height(); j++) {
-                if (!plants.contains(new Vector2D(i, j))) {
-                    plantCandidates.add(new Vector2D(i, j));
-                }
-            }
-        }
-        plants.addAll(selectRandom(plantCandidates, Math.round(amount * 0.2f)));
-        plantCandidates = new ArrayList<>();
-        for (int i = 0; i < params.width(); i++) {
-            for (int j = barHeight; j < barHeight + equatorHeight; j++) {
-                if (!plants.contains(new Vector2D(i, j))) {
-                    plantCandidates.add(new Vector2D(i, j));
-                }
-            }
-        }
-        plants.addAll(selectRandom(plantCandidates, Math.round((amount) * 0.8f)));
-        for (Vector2D position : plants) {
+        growPlants(otherFreeCells, Math.round(amount * 0.2f));
+        growPlants(preferredFreeCells, Math.round(amount * 0.8f));
+    }
+
+    /**
+     * Grows plants on random cells drawn from the given free cells.
+     *
+     * @param freeCells cells available for new plants.
+     * @param amount    amount of plants to grow.
+     */
+    private void growPlants(CellIndex freeCells, int amount) {
+        int toGrow = Math.min(amount, freeCells.size());
+        for (int i = 0; i < toGrow; i++) {
+            int cell = freeCells.removeRandom(random);
+            grid.setPlant(cell, true);
+            occupantAdded(cell);
+            Vector2D position = grid.positionOf(cell);
             listeners.forEach(listener -> listener.addPlant(position));
         }
     }
 
     /**
-     * Removes dead animals from the map.
+     * Places a plant on the cell.
+     *
+     * @param cell the index of the cell.
+     * @return true if the plant was placed, false if there already was one.
+     */
+    protected boolean addPlant(int cell) {
+        if (!grid.setPlant(cell, true)) return false;
+        freeCellsOf(cell).remove(cell);
+        occupantAdded(cell);
+        return true;
+    }
+
+    /**
+     * Removes the plant from the cell.
+     *
+     * @param cell the index of the cell.
+     * @return true if the plant was removed, false if there was none.
+     */
+    protected boolean removePlant(int cell) {
+        if (!grid.setPlant(cell, false)) return false;
+        freeCellsOf(cell).add(cell);
+        return true;
+    }
+
+    /**
+     * @param cell the index of the cell.
+     * @return the free cell index of the region the cell belongs to.
+     */
+    private CellIndex freeCellsOf(int cell) {
+        return isPreferredRow(grid.positionOf(cell).y()) ? preferredFreeCells : otherFreeCells;
+    }
+
+    /**
+     * Removes dead animals from the map. Dead animals are found
+     * by a linear scan over the population.
      */
     protected void removeDeadAnimals() {
-        Map<Vector2D, ArrayList<Animal>> animalsToRemove = new HashMap<>();
-        List<Vector2D> emptyPositions = new ArrayList<>();
-
-        for (Vector2D position : animals.keySet()) {
-            ArrayList<Animal> toRemove = new ArrayList<>();
-            for (Animal animal : animals.get(position)) {
-                if (animal.isDead()) {
-                    totalLifetime += animal.getAge();
-                    deadCount++;
-                    toRemove.add(animal);
-                }
+        int touchedCount = 0;
+        for (int slot = 0; slot < population.getSlotLimit(); slot++) {
+            if (!population.isOccupied(slot) || !population.isDead(slot)) continue;
+            int cell = removeAnimal(slot);
+            if (!touched[cell]) {
+                touched[cell] = true;
+                touchedCells[touchedCount++] = cell;
             }
+        }
+        notifyTouchedCells(touchedCount);
+    }
 
-            if (!toRemove.isEmpty()) {
-                animalsToRemove.put(position, toRemove);
-            }
+    /**
+     * Removes the animal from the map, frees its slot and counts its lifetime.
+     *
+     * @param slot the slot of the animal.
+     * @return the index of the cell the animal was on.
+     */
+    protected int removeAnimal(int slot) {
+        totalLifetime += population.getAge(slot);
+        deadCount++;
+        int cell = grid.removeAnimal(slot);
+        grid.addEnergy(cell, -population.getEnergy(slot));
+        population.release(slot);
+        return cell;
+    }
 
-            if (animals.get(position).isEmpty()) {
-                emptyPositions.add(position);
-            }
+    /**
+     * Places the animal on the cell and adds its energy to the cell.
+     *
+     * @param cell the index of the cell.
+     * @param slot the slot of the animal.
+     */
+    protected void placeAnimal(int cell, int slot) {
+        grid.addAnimal(cell, slot);
+        grid.addEnergy(cell, population.getEnergy(slot));
+        occupantAdded(cell);
+    }
+
+    /**
+     * Called whenever an animal or a plant appears on the cell,
+     * so maps can react to changes of single cells.
+     *
+     * @param cell the index of the cell.
+     */
+    protected void occupantAdded(int cell) {
+    }
+
+    /**
+     * Sets the pool used for computing phases of the step of large populations.
+     *
+     * @param stepPool the pool, or null to always run the step on the calling thread.
+     */
+    public void setStepPool(ForkJoinPool stepPool) {
+        this.stepPool = stepPool;
+    }
+
+    /**
+     * Runs the phase for the given amount of elements, in parallel ranges
+     * if the population is large enough.
+     *
+     * @param size  the amount of elements.
+     * @param grain the maximal length of a range computed by one worker.
+     * @param phase the phase to run.
+     */
+    private void runPhase(int size, int grain, RangePhase phase) {
+        if (stepPool != null && population.size() >= parallelStepThreshold) {
+            stepPool.invoke(new PhaseTask(0, size, grain, phase));
+        } else {
+            phase.run(0, size);
         }
-        final int max = getMaxAnimalAmount();
-        for (Map.Entry<Vector2D, ArrayList<Animal>> entry : animalsToRemove.entrySet()) {
-            animals.get(entry.getKey()).removeAll(entry.getValue());
-            listeners.forEach(listener ->
-                    listener.updateAnimal(entry.getKey(),
-                            animals.get(entry.getKey()).size(), max,
-                            getEnergyOnPosition(entry.getKey())));
+    }
+
+    /**
+     * Moves each animal on the map. New cells of animals are computed first, in parallel
+     * for large populations, with skip rolls keyed by the step and the animal. Workers
+     * write to disjoint ranges of the per-slot targets, which are merged into the grid
+     * in the order of slots, so the result does not depend on the amount of threads.
+     * Animals with views are moved during the merge, so their listeners are notified
+     * on the calling thread.
+     *
+     * @param step current simulation step.
+     */
+    protected void moveAnimals(int step) {
+        int slotLimit = population.getSlotLimit();
+        if (moveTargets.length < slotLimit) {
+            moveTargets = new int[slotLimit * 2];
         }
-        for (Vector2D position : emptyPositions) {
-            animals.remove(position);
+        runPhase(slotLimit, MOVE_CHUNK, (from, to) -> computeMoves(from, to, step));
+        int touchedCount = 0;
+        int quietlyMoved = 0;
+        for (int slot = 0; slot < slotLimit; slot++) {
+            if (!population.isOccupied(slot)) continue;
+            int cell = grid.cellOf(slot);
+            int target = moveTargets[slot];
+            if (target == MOVED_WITH_VIEW) {
+                target = population.move(slot, this, cell, step);
+            } else {
+                grid.addEnergy(cell, -1);
+                quietlyMoved++;
+            }
+            if (target != cell) {
+                int energy = population.getEnergy(slot);
+                grid.addEnergy(cell, -energy);
+                grid.moveAnimal(slot, target);
+                grid.addEnergy(target, energy);
+                occupantAdded(target);
+            }
+            if (!touched[cell]) {
+                touched[cell] = true;
+                touchedCells[touchedCount++] = cell;
+            }
+            if (!touched[target]) {
+                touched[target] = true;
+                touchedCells[touchedCount++] = target;
+            }
         }
+        population.moveEnergySpent(quietlyMoved);
+        notifyTouchedCells(touchedCount);
     }
 
     /**
-     * Moves each animal on the map.
+     * Computes new cells of animals without views in a range of slots.
      *
+     * @param from the first slot of the range (inclusive).
+     * @param to   the last slot of the range (exclusive).
      * @param step current simulation step.
      */
-    protected void moveAnimals(int step) {
-        HashMap<Vector2D, ArrayList<Animal>> updatedAnimals = new HashMap<>();
-        for (Map.Entry<Vector2D, ArrayList<Animal>> entry : animals.entrySet()) {
-            Vector2D position = entry.getKey();
-            List<Animal> animalList = entry.getValue();
-
-            if (animalList.isEmpty()) continue;
-            for (Animal animal : animalList) {
-                Vector2D newPosition = animal.move(this, position, step);
-                updatedAnimals
-                        .computeIfAbsent(newPosition, k -> new ArrayList<>())
-                        .add(animal);
+    private void computeMoves(int from, int to, int step) {
+        for (int slot = from; slot < to; slot++) {
+            if (!population.isOccupied(slot)) continue;
+            if (population.hasView(slot)) {
+                moveTargets[slot] = MOVED_WITH_VIEW;
+                continue;
             }
+            moveTargets[slot] = population.moveQuietly(slot, this, grid.cellOf(slot), step,
+                    population.drawSkipRoll(slot, step));
         }
-        Set<Vector2D> oldPositions = animals.keySet();
-        oldPositions.removeAll(updatedAnimals.keySet());
-        final int max = getMaxAnimalAmount();
-        for (Vector2D position : oldPositions) {
-            listeners.forEach(listener ->
-                    listener.updateAnimal(position, 0, max, getEnergyOnPosition(position)));
+    }
+
+    /**
+     * Part of a phase of the step computed for a range of elements.
+     */
+    @FunctionalInterface
+    private interface RangePhase {
+        /**
+         * @param from the first element of the range (inclusive).
+         * @param to   the last element of the range (exclusive).
+         */
+        void run(int from, int to);
+    }
+
+    /**
+     * Runs a phase for a range of elements, splitting the range between workers
+     * of the pool at multiples of the grain.
+     */
+    private static class PhaseTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final transient RangePhase phase;
+
+        /**
+         * @param from  the first element of the range (inclusive).
+         * @param to    the last element of the range (exclusive).
+         * @param grain the maximal length of a range computed without splitting.
+         * @param phase the phase to run.
+         */
+        PhaseTask(int from, int to, int grain, RangePhase phase) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.phase = phase;
         }
-        animals = updatedAnimals;
-        for (Vector2D position : updatedAnimals.keySet()) {
-            listeners.forEach(listener ->
-                    listener.updateAnimal(position, updatedAnimals.get(position).size(), max,
-                            getEnergyOnPosition(position)));
+
+        @Override
+        protected void compute() {
+            if (to - from > grain && getPool() != null) {
+                int middle = from + Math.max(1, (to - from) / grain / 2) * grain;
+                invokeAll(new PhaseTask(from, middle, grain, phase), new PhaseTask(middle, to, grain, phase));
+                return;
+            }
+            phase.run(from, to);
+        }
+    }
+
+    /**
+     * Computes the result of moving from the cell in the given direction.
+     * It is called only while building the transition table, moves during
+     * the simulation are looked up in the table.
+     *
+     * @param cell      the index of the current cell.
+     * @param direction the ordinal of the direction of the move.
+     * @return the new cell and direction packed with {@link GridMovementHandler#pack(int, int)}.
+     */
+    protected abstract int computeMove(int cell, int direction);
+
+    @Override
+    public int move(int cell, int direction) {
+        return transitions[GridMovementHandler.pack(cell, direction)];
+    }
+
+    @Override
+    public Pair<Vector2D, MapDirection> move(Vector2D position, MapDirection direction) {
+        int move = move(grid.indexOf(position), direction.ordinal());
+        return new Pair<>(grid.positionOf(GridMovementHandler.cellOf(move)),
+                MapDirection.fromOrdinal(GridMovementHandler.directionOf(move)));
+    }
+
+    @Override
+    public Vector2D positionOf(int cell) {
+        return grid.positionOf(cell);
+    }
+
+    /**
+     * Notifies listeners about the current state of the touched cells and resets their marks.
+     *
+     * @param touchedCount amount of cells stored in {@code touchedCells}.
+     */
+    private void notifyTouchedCells(int touchedCount) {
+        if (touchedCount == 0) return;
+        final int max = getMaxAnimalAmount();
+        for (int i = 0; i < touchedCount; i++) {
+            int cell = touchedCells[i];
+            touched[cell] = false;
+            notifyAnimalUpdate(cell, max);
         }
     }
 
+    /**
+     * Notifies listeners about the amount of animals and their energy on the cell.
+     *
+     * @param cell the index of the updated cell.
+     * @param max  maximum amount of animals on one cell.
+     */
+    protected void notifyAnimalUpdate(int cell, int max) {
+        if (listeners.isEmpty()) return;
+        Vector2D position = grid.positionOf(cell);
+        int animalAmount = grid.getAnimalAmount(cell);
+        int energy = getEnergyOnCell(cell);
+        listeners.forEach(listener -> listener.updateAnimal(position, animalAmount, max, energy));
+    }
+
     /**
      * Executes a simulation step, including removing dead animals, moving, feeding, breeding, and growing plants.
      *
@@ -346,21 +664,22 @@ public abstract class AbstractMap implements MovementHandler {
         growPlants(this.params.plantGrowingAmount());
     }
 
+    public int getEnergyOnPosition(Vector2D position) {
+        if (!grid.contains(position)) return 0;
+        return getEnergyOnCell(grid.indexOf(position));
+    }
+
     /**
-     * Selects random elements from provided list.
+     * Calculates the average energy of animals on the cell
+     * from the sum of energy kept by the grid.
      *
-     * @param positions available items.
-     * @param amount    amount of items to select.
-     * @return new list of selected items.
+     * @param cell the index of the cell.
+     * @return average energy, or 0 if there are no animals.
      */
-    private List<Vector2D> selectRandom(List<Vector2D> positions, int amount) {
-        Collections.shuffle(positions, this.random);
-        return positions.subList(0, Math.min(amount, positions.size()));
-    }
-
-    public int getEnergyOnPosition(Vector2D position) {
-        if (!animals.containsKey(position)) return 0;
-        return (int) animals.get(position).stream().mapToInt(Animal::getEnergy).average().orElse(0);
+    protected int getEnergyOnCell(int cell) {
+        int animalAmount = grid.getAnimalAmount(cell);
+        if (animalAmount == 0) return 0;
+        return (int) (grid.getEnergy(cell) / animalAmount);
     }
 
     /**
@@ -401,9 +720,11 @@ public abstract class AbstractMap implements MovementHandler {
     }
 
     public boolean isGenomeOnPosition(Vector2D position, MoveDirection[] genome) {
-         return animals.containsKey(position) && animals
-                .get(position)
-                .stream()
-                .anyMatch(animal -> Arrays.equals(animal.getGenome(), genome));
+        if (!grid.contains(position)) return false;
+        int cell = grid.indexOf(position);
+        for (int slot = grid.firstAnimal(cell); slot >= 0; slot = grid.nextAnimal(slot)) {
+            if (population.getGenome(slot).matches(genome)) return true;
+        }
+        return false;
     }
 }
@@ -0,0 +1,98 @@
+package agh.darwinworld.models.maps;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Set of cell indexes that supports adding, removing, accessing
+ * and drawing a random cell in constant time. Cells are stored densely and
+ * every cell keeps a pointer to its position in the dense array,
+ * so removal swaps the removed cell with the last one.
+ */
+public class CellIndex {
+    private final int[] cells;
+    private final int[] positions;
+    private int size = 0;
+
+    /**
+     * Creates an empty index for cells in range {@code [0, cellCount)}.
+     *
+     * @param cellCount the total amount of cells of the grid.
+     */
+    public CellIndex(int cellCount) {
+        this.cells = new int[cellCount];
+        this.positions = new int[cellCount];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * @return the amount of cells in the index.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param cell the index of the cell.
+     * @return true if the cell is in the index, false otherwise.
+     */
+    public boolean contains(int cell) {
+        return positions[cell] >= 0;
+    }
+
+    /**
+     * Adds the cell to the index.
+     *
+     * @param cell the index of the cell.
+     * @return true if the cell was added, false if it was already present.
+     */
+    public boolean add(int cell) {
+        if (positions[cell] >= 0) return false;
+        cells[size] = cell;
+        positions[cell] = size;
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes the cell from the index.
+     *
+     * @param cell the index of the cell.
+     * @return true if the cell was removed, false if it was not present.
+     */
+    public boolean remove(int cell) {
+        int position = positions[cell];
+        if (position < 0) return false;
+        int last = cells[--size];
+        cells[position] = last;
+        positions[last] = position;
+        positions[cell] = -1;
+        return true;
+    }
+
+    /**
+     * Returns the cell at the position in the dense array. Positions
+     * change when cells are removed.
+     *
+     * @param position the position in range {@code [0, size())}.
+     * @return the index of the cell.
+     */
+    public int get(int position) {
+        return cells[position];
+    }
+
+    /**
+     * Draws a uniformly random cell and removes it from the index.
+     *
+     * @param random the random number generator.
+     * @return the index of the drawn cell.
+     * @throws IllegalStateException if the index is empty.
+     */
+    public int removeRandom(Random random) {
+        if (size == 0)
+            throw new IllegalStateException("Cannot draw a cell from an empty index!");
+        int cell = cells[random.nextInt(size)];
+        remove(cell);
+        return cell;
+    }
+}
@@ -1,20 +1,56 @@
 package agh.darwinworld.models.maps;
 
-import agh.darwinworld.models.animals.Animal;
+import agh.darwinworld.models.FireChangeSet;
 import agh.darwinworld.models.MapDirection;
-import agh.darwinworld.models.listeners.MovementHandler;
+import agh.darwinworld.models.SimulationParameters;
+import agh.darwinworld.models.listeners.GridMovementHandler;
 import agh.darwinworld.models.Vector2D;
-import javafx.util.Pair;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.Arrays;
 
 /**
  * A map with additional fires that spreads on plants and kill animals.
+ * Fire is driven by events: a cell burns when it catches fire and whenever
+ * an animal or a plant appears on it, and it is extinguished by a timing wheel
+ * keyed by the step of extinguishing. Cells which burn without any change
+ * are not visited, so the cost of fire does not depend on its length.
+ * Listeners are notified about all cells changed by fire at once, with the step
+ * of extinguishing of every cell, and receive a change set in every step in which
+ * something burns, so they can advance stages of burning cells themselves.
  */
-public class FireMap extends AbstractMap implements MovementHandler {
-    private final HashMap<Vector2D, Integer> fire = new HashMap<>();
+public class FireMap extends AbstractMap {
+    private static final int NO_FIRE = -1;
+
+    private int[] fireEnd = new int[0];
+    private boolean[] queued = new boolean[0];
+    private int[] pending = new int[0];
+    private int pendingCount = 0;
+    private int[] burning = new int[0];
+    private int[][] wheel = new int[0][];
+    private int[] wheelSizes = new int[0];
+    private int lastStep = -1;
+    private int burningCount = 0;
+    private Vector2D[] changedPositions = new Vector2D[0];
+    private int[] changedEnds = new int[0];
+
+    @Override
+    public void setParameters(SimulationParameters params) {
+        super.setParameters(params);
+        int cellCount = grid.getCellCount();
+        fireEnd = new int[cellCount];
+        Arrays.fill(fireEnd, NO_FIRE);
+        queued = new boolean[cellCount];
+        pending = new int[cellCount];
+        pendingCount = 0;
+        burning = new int[cellCount];
+        int wheelLength = params.fireLength() + 2;
+        wheel = new int[wheelLength][4];
+        wheelSizes = new int[wheelLength];
+        lastStep = -1;
+        burningCount = 0;
+        changedPositions = new Vector2D[cellCount * 2];
+        changedEnds = new int[cellCount * 2];
+    }
 
     /**
      * Checks if there is fire at the specified position on the map.
@@ -23,71 +59,159 @@ public class FireMap extends AbstractMap implements MovementHandler {
      * @return {@code true} if there is fire at the specified position, {@code false} otherwise.
      */
     public boolean isFireAtPosition(Vector2D position) {
-        return fire.containsKey(position);
+        return grid.contains(position) && fireEnd[grid.indexOf(position)] != NO_FIRE;
     }
 
     @Override
     public void step(int stepNumber) {
         super.step(stepNumber);
         propagateFire(stepNumber);
-        if (stepNumber % this.params.fireInterval() == 0 && !plants.isEmpty()) {
-            Vector2D randomPos = plants.toArray(new Vector2D[0])[this.random.nextInt(plants.size())];
-            fire.put(randomPos, this.params.fireLength());
+        if (stepNumber % this.params.fireInterval() == 0 && grid.getPlantCount() > 0) {
+            ignite(grid.randomPlant(this.random), stepNumber);
         }
         updateStatistics(stepNumber);
 
     }
 
-    private void propagateFire(int step) {
-        HashMap<Vector2D, Integer> newFire = new HashMap<>();
-        Iterator<Map.Entry<Vector2D, Integer>> iterator = fire.entrySet().iterator();
-        while (iterator.hasNext()) {
-            Map.Entry<Vector2D, Integer> fireData = iterator.next();
-            Vector2D position = fireData.getKey();
-            Vector2D[] directions = new Vector2D[]{
-                    position.add(new Vector2D(0, 1)),
-                    position.add(new Vector2D(1, 0)),
-                    position.add(new Vector2D(0, -1)),
-                    position.add(new Vector2D(-1, 0)),
-            };
-            for (Vector2D direction : directions) {
-                if (fire.containsKey(direction)) continue;
-                if (plants.contains(position)) {
-                    newFire.put(direction, this.params.fireLength());
-                    listeners.forEach(listener -> listener.removePlant(position));
-                }
-            }
-            listeners.forEach(listener -> listener.updateFire(position, fire.get(position)));
-            final int max = getMaxAnimalAmount();
-            listeners.forEach(listener -> listener.updateAnimal(position, 0, max,
-                    0));
-            if (animals.containsKey(position)) {
-                for (Animal animal : animals.get(position)) {
-                    animal.forceKill(step);
-                    totalLifetime += animal.getAge();
-                    deadCount++;
-                }
-                animals.get(position).removeAll(animals.get(position));
-                animals.remove(position);
-            }
-
-            plants.remove(position);
-
-            if (fireData.getValue() <= 0) {
-                listeners.forEach(listener -> listener.updateFire(position, 0));
-                iterator.remove();
-            } else {
-                fireData.setValue(fireData.getValue() - 1);
-            }
+    /**
+     * Sets the cell on fire. The cell burns for the first time in the next propagation
+     * of the fire and is extinguished {@code fireLength + 1} steps after catching fire.
+     * Igniting a burning cell extends its fire.
+     *
+     * @param cell the index of the cell.
+     * @param step the current simulation step.
+     */
+    protected void ignite(int cell, int step) {
+        int end = step + params.fireLength() + 1;
+        if (fireEnd[cell] == NO_FIRE) burningCount++;
+        fireEnd[cell] = end;
+        int bucket = end % wheel.length;
+        if (wheelSizes[bucket] == wheel[bucket].length)
+            wheel[bucket] = Arrays.copyOf(wheel[bucket], wheel[bucket].length * 2);
+        wheel[bucket][wheelSizes[bucket]++] = cell;
+        enqueue(cell);
+    }
+
+    @Override
+    protected void occupantAdded(int cell) {
+        if (fireEnd[cell] != NO_FIRE) enqueue(cell);
+    }
+
+    /**
+     * Marks the cell to burn in the next propagation of the fire.
+     *
+     * @param cell the index of the cell.
+     */
+    private void enqueue(int cell) {
+        if (queued[cell]) return;
+        queued[cell] = true;
+        pending[pendingCount++] = cell;
+    }
+
+    /**
+     * Burns cells which caught fire or received animals or plants since the last
+     * propagation, then extinguishes cells whose fire ends in this step. Changed
+     * cells are reported to listeners in one change set, which is sent also without
+     * changes while any cell burns.
+     *
+     * @param step the current simulation step.
+     */
+    protected void propagateFire(int step) {
+        int visitedCount = pendingCount;
+        int[] swap = burning;
+        burning = pending;
+        pending = swap;
+        pendingCount = 0;
+        for (int i = 0; i < visitedCount; i++) {
+            queued[burning[i]] = false;
+        }
+        int changedCount = 0;
+        for (int s = Math.max(lastStep + 1, step - wheel.length + 1); s < step; s++) {
+            changedCount = extinguish(s, step, changedCount);
         }
-        fire.putAll(newFire);
+        for (int i = 0; i < visitedCount; i++) {
+            int cell = burning[i];
+            burn(cell, step);
+            changedPositions[changedCount] = grid.positionOf(cell);
+            changedEnds[changedCount++] = fireEnd[cell];
+        }
+        changedCount = extinguish(step, step, changedCount);
+        lastStep = step;
+        if ((changedCount > 0 || burningCount > 0) && !listeners.isEmpty()) {
+            FireChangeSet changes = new FireChangeSet(step, changedPositions, changedEnds, changedCount,
+                    getMaxAnimalAmount());
+            listeners.forEach(listener -> listener.updateFires(changes));
+        }
+    }
+
+    /**
+     * Extinguishes cells from the bucket of the timing wheel whose fire has ended.
+     * Cells ignited again since they were put into the bucket are skipped. Steps
+     * skipped between propagations are caught up before burning, as cells ignited
+     * while burning fall into the bucket of the previous step.
+     *
+     * @param bucketStep   the step of the bucket.
+     * @param step         the current simulation step.
+     * @param changedCount the amount of changed cells.
+     * @return the amount of changed cells after extinguishing.
+     */
+    private int extinguish(int bucketStep, int step, int changedCount) {
+        int bucket = Math.floorMod(bucketStep, wheel.length);
+        for (int i = 0; i < wheelSizes[bucket]; i++) {
+            int cell = wheel[bucket][i];
+            int end = fireEnd[cell];
+            if (end == NO_FIRE || end > step || end % wheel.length != bucket) continue;
+            fireEnd[cell] = NO_FIRE;
+            burningCount--;
+            changedPositions[changedCount] = grid.positionOf(cell);
+            changedEnds[changedCount++] = step;
+        }
+        wheelSizes[bucket] = 0;
+        return changedCount;
+    }
+
+    /**
+     * Kills animals and plants on the burning cell and spreads the fire to the
+     * neighbours which do not burn yet, if there was a plant on the cell.
+     *
+     * @param cell the index of the burning cell.
+     * @param step the current simulation step.
+     */
+    private void burn(int cell, int step) {
+        if (grid.hasPlant(cell)) {
+            int width = grid.getWidth();
+            int x = cell % width;
+            int y = cell / width;
+            if (y + 1 < grid.getHeight()) spread(grid.indexOf(x, y + 1), step);
+            if (x + 1 < width) spread(grid.indexOf(x + 1, y), step);
+            if (y > 0) spread(grid.indexOf(x, y - 1), step);
+            if (x > 0) spread(grid.indexOf(x - 1, y), step);
+        }
+        for (int slot = grid.firstAnimal(cell); slot >= 0; ) {
+            int nextSlot = grid.nextAnimal(slot);
+            population.kill(slot, step);
+            removeAnimal(slot);
+            slot = nextSlot;
+        }
+        removePlant(cell);
+    }
+
+    /**
+     * Sets the neighbour of a burning cell on fire, unless it already burns.
+     *
+     * @param neighbour the index of the neighbouring cell.
+     * @param step      the current simulation step.
+     */
+    private void spread(int neighbour, int step) {
+        if (fireEnd[neighbour] == NO_FIRE) ignite(neighbour, step);
     }
 
     @Override
-    public Pair<Vector2D, MapDirection> move(Vector2D position, MapDirection direction) {
-        Vector2D newPos = position.add(direction.getValue())
-                .lowerLeft(new Vector2D(this.params.width() - 1, this.params.height() - 1))
-                .upperRight(new Vector2D(0, 0));
-        return new Pair<>(newPos, direction);
+    protected int computeMove(int cell, int direction) {
+        Vector2D vector = MapDirection.fromOrdinal(direction).getValue();
+        int width = grid.getWidth();
+        int x = Math.clamp(cell % width + vector.x(), 0, width - 1);
+        int y = Math.clamp(cell / width + vector.y(), 0, grid.getHeight() - 1);
+        return GridMovementHandler.pack(grid.indexOf(x, y), direction);
     }
 }
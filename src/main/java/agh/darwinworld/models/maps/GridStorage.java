@@ -0,0 +1,345 @@
+package agh.darwinworld.models.maps;
+
+import agh.darwinworld.models.Vector2D;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Dense storage of the map occupancy. Every cell of the {@code width x height}
+ * rectangle is addressed by its index {@code y * width + x}, so accessing animals
+ * or plants on a cell neither hashes nor allocates. Animals are referenced by their
+ * slots in the {@link agh.darwinworld.models.animals.Population} and animals of
+ * one cell are linked into a list through arrays indexed by slots. Plants are kept
+ * in a {@link CellIndex}, so a random plant is drawn in constant time.
+ */
+public class GridStorage {
+    private final int width;
+    private final int height;
+    private final Vector2D[] positions;
+    private final int[] heads;
+    private final int[] tails;
+    private final int[] counts;
+    private final long[] energy;
+    private int[] cells = new int[0];
+    private int[] next = new int[0];
+    private int[] prev = new int[0];
+    private final CellIndex plants;
+    private int animalCount = 0;
+    private int occupiedCellCount = 0;
+    private int occupiedPlantCellCount = 0;
+    private int[] cellsWithAmount = new int[4];
+    private int maxAnimalAmount = 0;
+
+    /**
+     * Creates an empty storage for the rectangle of the given size.
+     *
+     * @param width  the width of the map.
+     * @param height the height of the map.
+     * @throws IllegalArgumentException if width or height is less than or equal to 0.
+     */
+    public GridStorage(int width, int height) {
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("Grid dimensions must be greater than 0!");
+        this.width = width;
+        this.height = height;
+        int cellCount = width * height;
+        this.positions = new Vector2D[cellCount];
+        for (int i = 0; i < cellCount; i++)
+            positions[i] = new Vector2D(i % width, i / width);
+        this.heads = new int[cellCount];
+        this.tails = new int[cellCount];
+        this.counts = new int[cellCount];
+        this.energy = new long[cellCount];
+        Arrays.fill(heads, -1);
+        Arrays.fill(tails, -1);
+        cellsWithAmount[0] = cellCount;
+        this.plants = new CellIndex(cellCount);
+    }
+
+    /**
+     * @return the width of the grid.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return the height of the grid.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return the total amount of cells in the grid.
+     */
+    public int getCellCount() {
+        return positions.length;
+    }
+
+    /**
+     * Checks if a position lies inside the grid.
+     *
+     * @param position the position to check.
+     * @return true if the position has a cell, false otherwise.
+     */
+    public boolean contains(Vector2D position) {
+        return position.x() >= 0 && position.x() < width && position.y() >= 0 && position.y() < height;
+    }
+
+    /**
+     * Computes the cell index of the given coordinates.
+     *
+     * @param x the x-coordinate of the cell.
+     * @param y the y-coordinate of the cell.
+     * @return the index of the cell.
+     */
+    public int indexOf(int x, int y) {
+        return y * width + x;
+    }
+
+    /**
+     * Computes the cell index of the given position.
+     *
+     * @param position the position inside the grid.
+     * @return the index of the cell.
+     */
+    public int indexOf(Vector2D position) {
+        return indexOf(position.x(), position.y());
+    }
+
+    /**
+     * Returns the position of the cell. The returned vector is cached,
+     * so calling this method does not allocate.
+     *
+     * @param index the index of the cell.
+     * @return the position of the cell.
+     */
+    public Vector2D positionOf(int index) {
+        return positions[index];
+    }
+
+    /**
+     * @param index the index of the cell.
+     * @return the amount of animals on the cell.
+     */
+    public int getAnimalAmount(int index) {
+        return counts[index];
+    }
+
+    /**
+     * @param index the index of the cell.
+     * @return the sum of energy of animals on the cell.
+     */
+    public long getEnergy(int index) {
+        return energy[index];
+    }
+
+    /**
+     * Changes the sum of energy of animals on the cell.
+     *
+     * @param index the index of the cell.
+     * @param delta the change of energy.
+     */
+    public void addEnergy(int index, long delta) {
+        energy[index] += delta;
+    }
+
+    /**
+     * Returns the first animal living on the cell. Animals on a cell
+     * are kept in the order in which they entered it.
+     *
+     * @param index the index of the cell.
+     * @return the slot of the first animal, or -1 if the cell is empty.
+     */
+    public int firstAnimal(int index) {
+        return heads[index];
+    }
+
+    /**
+     * Returns the animal following the given one on the same cell.
+     *
+     * @param slot the slot of the animal.
+     * @return the slot of the next animal, or -1 if it is the last one.
+     */
+    public int nextAnimal(int slot) {
+        return next[slot];
+    }
+
+    /**
+     * @param slot the slot of the animal.
+     * @return the index of the cell of the animal, or -1 if the animal is not in the grid.
+     */
+    public int cellOf(int slot) {
+        return slot < cells.length ? cells[slot] : -1;
+    }
+
+    /**
+     * Places an animal at the end of the cell. The links between animals
+     * are stored in arrays indexed by slots, so no allocation happens
+     * unless the slot has never been seen before.
+     *
+     * @param index the index of the cell.
+     * @param slot  the slot of the animal.
+     * @throws IllegalArgumentException if the animal already is in the grid.
+     */
+    public void addAnimal(int index, int slot) {
+        ensureSlotCapacity(slot + 1);
+        if (cells[slot] >= 0)
+            throw new IllegalArgumentException("Animal is already in the grid!");
+        cells[slot] = index;
+        next[slot] = -1;
+        prev[slot] = tails[index];
+        if (tails[index] >= 0) next[tails[index]] = slot;
+        else heads[index] = slot;
+        tails[index] = slot;
+        if (counts[index]++ == 0) {
+            occupiedCellCount++;
+            if (plants.contains(index)) occupiedPlantCellCount++;
+        }
+        int amount = counts[index];
+        if (amount == cellsWithAmount.length) cellsWithAmount = Arrays.copyOf(cellsWithAmount, amount * 2);
+        cellsWithAmount[amount - 1]--;
+        cellsWithAmount[amount]++;
+        if (amount > maxAnimalAmount) maxAnimalAmount = amount;
+        animalCount++;
+    }
+
+    /**
+     * Removes an animal from its cell.
+     *
+     * @param slot the slot of the animal.
+     * @return the index of the cell the animal was on, or -1 if it was not in the grid.
+     */
+    public int removeAnimal(int slot) {
+        int index = cellOf(slot);
+        if (index < 0) return -1;
+        if (prev[slot] >= 0) next[prev[slot]] = next[slot];
+        else heads[index] = next[slot];
+        if (next[slot] >= 0) prev[next[slot]] = prev[slot];
+        else tails[index] = prev[slot];
+        cells[slot] = -1;
+        if (--counts[index] == 0) {
+            occupiedCellCount--;
+            if (plants.contains(index)) occupiedPlantCellCount--;
+        }
+        int amount = counts[index];
+        cellsWithAmount[amount + 1]--;
+        cellsWithAmount[amount]++;
+        if (cellsWithAmount[maxAnimalAmount] == 0) maxAnimalAmount--;
+        animalCount--;
+        return index;
+    }
+
+    /**
+     * Moves an animal to the end of another cell.
+     *
+     * @param slot  the slot of the animal.
+     * @param index the index of the target cell.
+     */
+    public void moveAnimal(int slot, int index) {
+        removeAnimal(slot);
+        addAnimal(index, slot);
+    }
+
+    /**
+     * Returns the maximum amount of animals on one cell. The grid keeps a histogram
+     * of amounts of animals on cells and, since amounts change by one,
+     * the maximum is updated in constant time.
+     *
+     * @return the maximum amount of animals on one cell.
+     */
+    public int getMaxAnimalAmount() {
+        return maxAnimalAmount;
+    }
+
+    /**
+     * @return the amount of cells with at least one animal.
+     */
+    public int getOccupiedCellCount() {
+        return occupiedCellCount;
+    }
+
+    /**
+     * @return the amount of cells with neither animals nor a plant.
+     */
+    public int getEmptyCellCount() {
+        return positions.length - occupiedCellCount - plants.size() + occupiedPlantCellCount;
+    }
+
+    /**
+     * @return the total amount of animals in the grid.
+     */
+    public int getAnimalCount() {
+        return animalCount;
+    }
+
+    /**
+     * Grows arrays indexed by slots so they can hold the given amount of slots.
+     *
+     * @param capacity the required amount of slots.
+     */
+    private void ensureSlotCapacity(int capacity) {
+        if (capacity <= cells.length) return;
+        int newCapacity = Math.max(capacity, cells.length * 2);
+        int oldCapacity = cells.length;
+        cells = Arrays.copyOf(cells, newCapacity);
+        Arrays.fill(cells, oldCapacity, newCapacity, -1);
+        next = Arrays.copyOf(next, newCapacity);
+        prev = Arrays.copyOf(prev, newCapacity);
+    }
+
+    /**
+     * @param index the index of the cell.
+     * @return true if there is a plant on the cell, false otherwise.
+     */
+    public boolean hasPlant(int index) {
+        return plants.contains(index);
+    }
+
+    /**
+     * Sets or clears the plant on the cell.
+     *
+     * @param index the index of the cell.
+     * @param plant whether the cell should have a plant.
+     * @return true if the state of the cell changed, false otherwise.
+     */
+    public boolean setPlant(int index, boolean plant) {
+        if (plant ? !plants.add(index) : !plants.remove(index)) return false;
+        if (counts[index] > 0) occupiedPlantCellCount += plant ? 1 : -1;
+        return true;
+    }
+
+    /**
+     * Returns the cell of the i-th plant. Plants are not ordered and removing a plant
+     * moves the last plant in its place, so iterating from the last plant to the
+     * first one visits every plant even if visited plants are removed.
+     *
+     * @param i the number of the plant in range {@code [0, getPlantCount())}.
+     * @return the index of the cell with the plant.
+     */
+    public int getPlant(int i) {
+        return plants.get(i);
+    }
+
+    /**
+     * Draws a uniformly random plant without removing it.
+     *
+     * @param random the random number generator.
+     * @return the index of the cell with the drawn plant.
+     * @throws IllegalStateException if there are no plants.
+     */
+    public int randomPlant(Random random) {
+        if (plants.size() == 0)
+            throw new IllegalStateException("Cannot draw a plant from an empty grid!");
+        return plants.get(random.nextInt(plants.size()));
+    }
+
+    /**
+     * @return the total amount of plants in the grid.
+     */
+    public int getPlantCount() {
+        return plants.size();
+    }
+}
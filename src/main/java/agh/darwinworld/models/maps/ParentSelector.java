@@ -0,0 +1,74 @@
+package agh.darwinworld.models.maps;
+
+import agh.darwinworld.models.animals.Population;
+
+/**
+ * Selects the two animals of a cell with the highest breeding priority in a single pass.
+ * Animals are ordered by energy (higher first), then by age (younger first), then
+ * by the amount of children (more first) and finally by a random number keyed
+ * by the step and the animal, so the order does not depend on the order of animals. The selector keeps no state between cells, so one instance
+ * can be reused by a thread for all cells.
+ */
+class ParentSelector {
+    private int first;
+    private int second;
+    private int firstTieBreak;
+    private int secondTieBreak;
+
+    /**
+     * Selects parents among animals of the cell.
+     *
+     * @param grid       the grid holding the cell.
+     * @param population the population of animals.
+     * @param step       the current simulation step.
+     * @param cell       the index of the cell.
+     * @return true if the cell has at least two animals, false otherwise.
+     */
+    boolean select(GridStorage grid, Population population, int step, int cell) {
+        first = -1;
+        second = -1;
+        for (int slot = grid.firstAnimal(cell); slot >= 0; slot = grid.nextAnimal(slot)) {
+            int tieBreak = population.drawTieBreak(slot, step);
+            if (first < 0 || precedes(population, slot, tieBreak, first, firstTieBreak)) {
+                second = first;
+                secondTieBreak = firstTieBreak;
+                first = slot;
+                firstTieBreak = tieBreak;
+            } else if (second < 0 || precedes(population, slot, tieBreak, second, secondTieBreak)) {
+                second = slot;
+                secondTieBreak = tieBreak;
+            }
+        }
+        return second >= 0;
+    }
+
+    /**
+     * @return the slot of the animal with the highest priority.
+     */
+    int getFirst() {
+        return first;
+    }
+
+    /**
+     * @return the slot of the animal with the second-highest priority.
+     */
+    int getSecond() {
+        return second;
+    }
+
+    /**
+     * Checks if the first animal has higher breeding priority than the second one.
+     */
+    private static boolean precedes(Population population, int slot, int tieBreak, int other, int otherTieBreak) {
+        int energy = population.getEnergy(slot);
+        int otherEnergy = population.getEnergy(other);
+        if (energy != otherEnergy) return energy > otherEnergy;
+        int age = population.getAge(slot);
+        int otherAge = population.getAge(other);
+        if (age != otherAge) return age < otherAge;
+        int children = population.getChildrenAmount(slot);
+        int otherChildren = population.getChildrenAmount(other);
+        if (children != otherChildren) return children > otherChildren;
+        return tieBreak > otherTieBreak;
+    }
+}
@@ -113,7 +113,7 @@ public class SimulationPresenter implements Initializable, SimulationStepListene
     @FXML
     private Label selectedAnimalPlantsEatenAmountLabel;
     @FXML
-    private Label selectedAnimalUuidLabel;
+    private Label selectedAnimalIdLabel;
     @FXML
     private Label selectedAnimalCurrentGeneLabel;
     @FXML
@@ -134,6 +134,7 @@ public class SimulationPresenter implements Initializable, SimulationStepListene
     private Thread simulationThread;
     private final List<SimulationPauseListener> listeners = new ArrayList<>();
     private HashMap<Vector2D, CellRegion> cells = new HashMap<>();
+    private final Set<CellRegion> burningCells = new HashSet<>();
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -160,10 +161,13 @@ public class SimulationPresenter implements Initializable, SimulationStepListene
     }
 
     public void selectAnimal(Animal animal, Vector2D vector2D) {
-        if (selectedAnimal != null)
-            selectedAnimal.removeListener(this);
-        selectedAnimal = animal;
-        selectedAnimal.addListener(this);
+        simulation.runBetweenSteps(() -> {
+            if (selectedAnimal != null)
+                selectedAnimal.removeListener(this);
+            selectedAnimal = animal;
+            selectedAnimal.addListener(this);
+            showSelectedAnimal();
+        });
         if (selectedAnimalPos != null) {
             CellRegion cell = cells.get(selectedAnimalPos);
             if (cell != null) cell.setIsSelected(false);
@@ -173,6 +177,12 @@ public class SimulationPresenter implements Initializable, SimulationStepListene
         if (cell != null)
             cell.setIsSelected(true);
         selectedAnimalGridPane.setVisible(true);
+    }
+
+    /**
+     * Shows the current state of the selected animal. Called between steps of the simulation.
+     */
+    private void showSelectedAnimal() {
         selectedAnimalAgeLabel.setText(Integer.toString(selectedAnimal.getAge()));
         if (selectedAnimal.isDead()) {
             selectedAnimalEnergyOrDiedAtLabel.setText("Died at:");
@@ -186,15 +196,17 @@ public class SimulationPresenter implements Initializable, SimulationStepListene
         selectedAnimalGenomeLabel.setText(Arrays.stream(selectedAnimal.getGenome()).map(x ->
                 Integer.toString(x.ordinal())).collect(Collectors.joining("")));
         selectedAnimalPlantsEatenAmountLabel.setText(Integer.toString(selectedAnimal.getTotalEatenPlants()));
-        selectedAnimalUuidLabel.setText(selectedAnimal.getUuid().toString());
+        selectedAnimalIdLabel.setText(Long.toString(selectedAnimal.getId()));
         selectedAnimalCurrentGeneLabel.setText(selectedAnimal.getCurrentGene().toString());
         selectedAnimalCurrentDirectionLabel.setText(selectedAnimal.getDirection().toString());
     }
 
     private void unselectAnimal() {
-        if (selectedAnimal != null)
-            selectedAnimal.removeListener(this);
-        selectedAnimal = null;
+        simulation.runBetweenSteps(() -> {
+            if (selectedAnimal != null)
+                selectedAnimal.removeListener(this);
+            selectedAnimal = null;
+        });
         if (selectedAnimalPos != null) {
             CellRegion cell = cells.get(selectedAnimalPos);
             if (cell != null) cell.setIsSelected(false);
@@ -303,12 +315,13 @@ public class SimulationPresenter implements Initializable, SimulationStepListene
     public void drawMap() {
         SimulationParameters p = simulation.getParameters();
         cells = new HashMap<>();
+        burningCells.clear();
         int maxAnimalAmount = simulation.getMap().getMaxAnimalAmount();
         int maxFireLength = p.fireLength();
         for (int i = 0; i < p.width(); i++) {
             for (int j = 0; j < p.height(); j++) {
                 Vector2D pos = new Vector2D(i, p.height() - j - 1);
-                int animalAmount = simulation.getMap().getAnimalsOnPosition(pos).size();
+                int animalAmount = simulation.getMap().getAnimalAmountOnPosition(pos);
                 boolean isPlant = simulation.getMap().isPlantOnPosition(pos);
                 int energy = simulation.getMap().getEnergyOnPosition(pos);
                 CellRegion cell = new CellRegion(isPlant, animalAmount, maxAnimalAmount, 0, maxFireLength, energy);
@@ -373,7 +386,17 @@ public class SimulationPresenter implements Initializable, SimulationStepListene
 
     private void handleCellClick(MouseEvent mouseEvent, Vector2D pos) {
         Stage currentStage = (Stage) ((Node) mouseEvent.getSource()).getScene().getWindow();
-        List<Animal> animals = simulation.getMap().getAnimalsOnPosition(pos);
+        List<Animal> animals = new ArrayList<>();
+        List<Integer> energies = new ArrayList<>();
+        List<Boolean> popular = new ArrayList<>();
+        simulation.runBetweenSteps(() -> {
+            MoveDirection[] popularGenome = simulation.getMap().popularGenome().getKey();
+            for (Animal animal : simulation.getMap().getAnimalsOnPosition(pos)) {
+                animals.add(animal);
+                energies.add(animal.getEnergy());
+                popular.add(Arrays.equals(animal.getGenome(), popularGenome));
+            }
+        });
 
         if (animals.size() == 1) {
             selectAnimal(animals.getFirst(), pos);
@@ -390,7 +413,7 @@ public class SimulationPresenter implements Initializable, SimulationStepListene
 
             List<Button> buttons = new ArrayList<>();
             for (int k = 0; k < animals.size(); k++) {
-                int e = animals.get(k).getEnergy();
+                int e = energies.get(k);
                 Button button = new Button("\uD83D\uDC12" + (k + 1) + (e == -1?  "☠": "\t\uD83D\uDDF2" + e));
                 button.setFont(new Font(11));
                 final int index = k;
@@ -399,7 +422,7 @@ public class SimulationPresenter implements Initializable, SimulationStepListene
                     modal.close();
                     if (isRunning) simulation.start();
                 });
-                if (Arrays.equals(animals.get(index).getGenome(), simulation.getMap().popularGenome().getKey())) {
+                if (popular.get(index)) {
                     button.getStyleClass().add("accent");
                 }
                 buttons.add(button);
@@ -499,6 +522,23 @@ public class SimulationPresenter implements Initializable, SimulationStepListene
         });
     }
 
+    @Override
+    public void updateFires(FireChangeSet changes) {
+        Platform.runLater(() -> {
+            int step = changes.getStep();
+            for (int i = 0; i < changes.size(); i++) {
+                CellRegion cell = cells.get(changes.getPosition(i));
+                if (cell != null) {
+                    cell.setFireEnd(changes.getFireEnd(i), step);
+                    cell.setAnimalAmount(0, changes.getMaxAnimalAmount(), 0);
+                    cell.setHasPlant(false);
+                    if (changes.getFireEnd(i) > step) burningCells.add(cell);
+                }
+            }
+            burningCells.removeIf(cell -> !cell.updateFireStage(step));
+        });
+    }
+
     @Override
     public void updateStatistics(int step, int animalCount, int plantCount, int emptyFieldCount,
                                  Pair<MoveDirection[], Integer> popularGenome, int averageLifetime,
@@ -0,0 +1,64 @@
+package agh.darwinworld.sweep;
+
+/**
+ * Range of values of an integer field of {@link agh.darwinworld.models.SimulationParameters}
+ * explored by a sweep.
+ *
+ * @param name the name of the record component, e.g. {@code plantGrowingAmount}.
+ * @param from the first value (inclusive).
+ * @param to   the last value (inclusive).
+ * @param step the difference between consecutive values.
+ */
+public record ParameterRange(String name, int from, int to, int step) {
+    /**
+     * Creates a range of values.
+     *
+     * @throws IllegalArgumentException if the field does not exist, is not an integer or is the seed,
+     *                                  if to < from or if step < 1.
+     */
+    public ParameterRange {
+        if (SweepPoint.SEED.equals(name))
+            throw new IllegalArgumentException("Seed cannot be swept, every point is run with its own range of seeds!");
+        if (!SweepPoint.isIntParameter(name))
+            throw new IllegalArgumentException("Unknown integer parameter: " + name + "!");
+        if (to < from)
+            throw new IllegalArgumentException("End of the range must be greater than or equal to its start!");
+        if (step < 1)
+            throw new IllegalArgumentException("Step must be greater than 0!");
+    }
+
+    /**
+     * Parses a range written as {@code name=from:to:step}, or {@code name=from:to} with the step 1.
+     *
+     * @param text the written range.
+     * @return the range.
+     * @throws IllegalArgumentException if the text is not a valid range.
+     */
+    public static ParameterRange parse(String text) {
+        String[] parts = text.split("=", 2);
+        String[] bounds = parts.length == 2 ? parts[1].split(":") : new String[0];
+        if (bounds.length != 2 && bounds.length != 3)
+            throw new IllegalArgumentException("Range must be written as name=from:to:step, got: " + text + "!");
+        try {
+            int step = bounds.length == 3 ? Integer.parseInt(bounds[2]) : 1;
+            return new ParameterRange(parts[0], Integer.parseInt(bounds[0]), Integer.parseInt(bounds[1]), step);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bounds of the range must be integers, got: " + text + "!");
+        }
+    }
+
+    /**
+     * @return the amount of values in the range.
+     */
+    public int size() {
+        return (int) (((long) to - from) / step + 1);
+    }
+
+    /**
+     * @param i the number of the value.
+     * @return the value of the range.
+     */
+    public int get(int i) {
+        return from + i * step;
+    }
+}
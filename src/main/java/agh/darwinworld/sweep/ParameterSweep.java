@@ -0,0 +1,174 @@
+package agh.darwinworld.sweep;
+
+import agh.darwinworld.Simulation;
+import agh.darwinworld.models.CounterRandom;
+import agh.darwinworld.models.SimulationParameters;
+import agh.darwinworld.models.maps.AbstractMap;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Explores ranges of parameters of the simulation without any user interface.
+ * Points of the sweep are chosen from the ranges by a {@link SweepDesign}, and every
+ * point is run with a range of seeds. Every run is a separate task of a fork-join pool, so workers
+ * whose runs stopped early because of the {@link StopCondition} take the remaining ones.
+ */
+public class ParameterSweep {
+    private final SimulationParameters base;
+    private final List<ParameterRange> ranges;
+    private final List<SweepPoint> points;
+    private final int seedsPerPoint;
+    private final int steps;
+    private final StopCondition stopCondition;
+
+    /**
+     * Creates a sweep with every combination of values of the ranges.
+     *
+     * @param base          the parameters providing values which are not swept and the first seed.
+     * @param ranges        the ranges of the swept parameters.
+     * @param seedsPerPoint the amount of runs of every point, with consecutive seeds.
+     * @param steps         the maximal amount of steps of every run.
+     * @param stopCondition the condition of stopping runs early.
+     * @throws IllegalArgumentException if seedsPerPoint < 1 or steps < 0.
+     */
+    public ParameterSweep(SimulationParameters base, List<ParameterRange> ranges, int seedsPerPoint, int steps,
+                          StopCondition stopCondition) {
+        this(base, ranges, SweepDesign.GRID, 0, seedsPerPoint, steps, stopCondition);
+    }
+
+    /**
+     * Creates a sweep.
+     *
+     * @param base          the parameters providing values which are not swept and the first seed.
+     * @param ranges        the ranges of the swept parameters.
+     * @param design        the way of choosing points from the ranges.
+     * @param samples       the amount of points of the {@link SweepDesign#RANDOM random} design,
+     *                      ignored by the grid design.
+     * @param seedsPerPoint the amount of runs of every point, with consecutive seeds.
+     * @param steps         the maximal amount of steps of every run.
+     * @param stopCondition the condition of stopping runs early.
+     * @throws IllegalArgumentException if seedsPerPoint < 1, steps < 0 or samples < 0.
+     */
+    public ParameterSweep(SimulationParameters base, List<ParameterRange> ranges, SweepDesign design, int samples,
+                          int seedsPerPoint, int steps, StopCondition stopCondition) {
+        if (seedsPerPoint < 1)
+            throw new IllegalArgumentException("Seeds per point must be greater than 0!");
+        if (steps < 0)
+            throw new IllegalArgumentException("Steps must be greater than or equal to 0!");
+        if (samples < 0)
+            throw new IllegalArgumentException("Samples must be greater than or equal to 0!");
+        this.base = base;
+        this.ranges = List.copyOf(ranges);
+        this.seedsPerPoint = seedsPerPoint;
+        this.steps = steps;
+        this.stopCondition = stopCondition;
+        this.points = switch (design) {
+            case GRID -> gridPoints();
+            case RANDOM -> randomPoints(samples);
+        };
+    }
+
+    /**
+     * @return points of the sweep, in the order of scheduling.
+     */
+    public List<SweepPoint> getPoints() {
+        return points;
+    }
+
+    /**
+     * Runs all points of the sweep on the pool and passes results to the sink as runs end.
+     * Returns when all runs are finished.
+     *
+     * @param pool the pool executing the runs.
+     * @param sink the receiver of the results.
+     */
+    public void run(ForkJoinPool pool, SweepSink sink) {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int run = 0; run < points.size() * seedsPerPoint; run++) {
+            SweepPoint point = points.get(run / seedsPerPoint);
+            int seed = base.seed() + run % seedsPerPoint;
+            tasks.add(pool.submit(() -> {
+                SweepResult result = runPoint(point, seed);
+                synchronized (sink) {
+                    sink.acceptResult(result);
+                }
+            }));
+        }
+        tasks.forEach(ForkJoinTask::join);
+    }
+
+    /**
+     * Runs a single point with a single seed on the calling thread.
+     *
+     * @param point the point of the sweep.
+     * @param seed  the seed of the run.
+     * @return the result of the run.
+     */
+    public SweepResult runPoint(SweepPoint point, int seed) {
+        SimulationParameters params;
+        try {
+            params = point.apply(base, seed);
+        } catch (IllegalArgumentException e) {
+            return new SweepResult(point, seed, SweepOutcome.INVALID, 0, 0, 0, 0, 0);
+        }
+        Simulation simulation = new Simulation(params);
+        AbstractMap map = simulation.getMap();
+        map.setStepPool(null);
+        StopCondition.Tracker tracker = stopCondition.newTracker();
+        SweepOutcome outcome = SweepOutcome.COMPLETED;
+        int step = 0;
+        while (step < steps) {
+            simulation.step();
+            step++;
+            SweepOutcome stop = tracker.update(map.animalCount());
+            if (stop != null) {
+                outcome = stop;
+                break;
+            }
+        }
+        return new SweepResult(point, seed, outcome, step, map.animalCount(), map.plantCount(),
+                map.averageEnergy(), map.averageLifetime());
+    }
+
+    /**
+     * Expands the ranges into every combination of their values, with the last range changing fastest.
+     */
+    private List<SweepPoint> gridPoints() {
+        List<SweepPoint> grid = new ArrayList<>();
+        int[] indexes = new int[ranges.size()];
+        while (true) {
+            Map<String, Integer> values = new LinkedHashMap<>();
+            for (int i = 0; i < ranges.size(); i++) {
+                values.put(ranges.get(i).name(), ranges.get(i).get(indexes[i]));
+            }
+            grid.add(new SweepPoint(values));
+            int i = ranges.size() - 1;
+            while (i >= 0 && ++indexes[i] == ranges.get(i).size()) {
+                indexes[i--] = 0;
+            }
+            if (i < 0) return grid;
+        }
+    }
+
+    /**
+     * Draws points with values chosen uniformly from every range, using the seed of the base parameters.
+     */
+    private List<SweepPoint> randomPoints(int samples) {
+        Random random = new CounterRandom(base.seed());
+        List<SweepPoint> sampled = new ArrayList<>();
+        for (int sample = 0; sample < samples; sample++) {
+            Map<String, Integer> values = new LinkedHashMap<>();
+            for (ParameterRange range : ranges) {
+                values.put(range.name(), range.get(random.nextInt(range.size())));
+            }
+            sampled.add(new SweepPoint(values));
+        }
+        return sampled;
+    }
+}
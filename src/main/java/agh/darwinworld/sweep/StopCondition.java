@@ -0,0 +1,66 @@
+package agh.darwinworld.sweep;
+
+/**
+ * Conditions on which a run of a sweep is abandoned before executing all its steps.
+ * A run stops when all animals died or when the amount of animals has stayed
+ * within the tolerance for the given amount of consecutive steps.
+ *
+ * @param stopOnExtinction   true if runs stop when all animals died.
+ * @param tolerance          the largest difference between the amounts of animals in the window,
+ *                           relative to the largest amount, for which the population is stable.
+ * @param stabilisationSteps the amount of consecutive steps in the window, or 0 to never stop
+ *                           on a stable population.
+ */
+public record StopCondition(boolean stopOnExtinction, double tolerance, int stabilisationSteps) {
+    /**
+     * Condition which never stops runs early.
+     */
+    public static final StopCondition NEVER = new StopCondition(false, 0, 0);
+
+    /**
+     * Creates the stop condition.
+     *
+     * @throws IllegalArgumentException if tolerance < 0 or stabilisationSteps < 0.
+     */
+    public StopCondition {
+        if (tolerance < 0)
+            throw new IllegalArgumentException("Tolerance must be greater than or equal to 0!");
+        if (stabilisationSteps < 0)
+            throw new IllegalArgumentException("Stabilisation steps must be greater than or equal to 0!");
+    }
+
+    /**
+     * @return a new tracker of a single run.
+     */
+    Tracker newTracker() {
+        return new Tracker();
+    }
+
+    /**
+     * Tracks amounts of animals of one run in a ring buffer of the last steps.
+     */
+    class Tracker {
+        private final int[] window = new int[stabilisationSteps];
+        private int recorded = 0;
+
+        /**
+         * Records the amount of animals after a step.
+         *
+         * @param animalCount the amount of animals.
+         * @return the outcome if the run should stop, null otherwise.
+         */
+        SweepOutcome update(int animalCount) {
+            if (stopOnExtinction && animalCount == 0) return SweepOutcome.EXTINCT;
+            if (window.length == 0) return null;
+            window[recorded++ % window.length] = animalCount;
+            if (recorded < window.length) return null;
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int count : window) {
+                min = Math.min(min, count);
+                max = Math.max(max, count);
+            }
+            return max - min <= tolerance * max ? SweepOutcome.STABLE : null;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package agh.darwinworld.sweep;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes results of a sweep to CSV, one row per run keyed by the values of the swept
+ * parameters and the seed. Every row is flushed as soon as the run ends.
+ */
+public class SweepCsvWriter implements SweepSink {
+    private final Writer writer;
+    private boolean headerWritten = false;
+
+    /**
+     * Creates a sink writing to the given writer. The writer is not closed by the sink.
+     *
+     * @param writer the writer of the CSV content.
+     */
+    public SweepCsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void acceptResult(SweepResult result) {
+        try {
+            if (!headerWritten) {
+                StringBuilder header = new StringBuilder();
+                result.point().getValues().keySet().forEach(name -> header.append(name).append(','));
+                header.append("seed,outcome,steps,animalCount,plantCount,averageEnergy,averageLifetime\n");
+                writer.write(header.toString());
+                headerWritten = true;
+            }
+            StringBuilder row = new StringBuilder();
+            result.point().getValues().values().forEach(value -> row.append(value).append(','));
+            row.append(result.seed()).append(',').append(result.outcome()).append(',').append(result.steps())
+                    .append(',').append(result.animalCount()).append(',').append(result.plantCount())
+                    .append(',').append(result.averageEnergy()).append(',').append(result.averageLifetime())
+                    .append('\n');
+            writer.write(row.toString());
+            writer.flush();
+        } catch (IOException e) {
+            throw new RuntimeException("Error while writing sweep results: " + e.getMessage());
+        }
+    }
+}
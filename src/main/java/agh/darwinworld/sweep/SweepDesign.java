@@ -0,0 +1,16 @@
+package agh.darwinworld.sweep;
+
+/**
+ * All possible ways of choosing points of a sweep from ranges of parameters.
+ */
+public enum SweepDesign {
+    /**
+     * Every combination of values of all ranges.
+     */
+    GRID,
+
+    /**
+     * The given amount of points with values drawn uniformly from every range.
+     */
+    RANDOM
+}
@@ -0,0 +1,122 @@
+package agh.darwinworld.sweep;
+
+import agh.darwinworld.models.SimulationParameters;
+import agh.darwinworld.models.exceptions.UserFriendlyException;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Command line entry point of the sweep mode, running a {@link ParameterSweep} without
+ * the user interface and writing its results to a CSV file.
+ * <p>
+ * Usage: {@code <parameters.json> <results.csv> <seedsPerPoint> <steps> <range>... [options]},
+ * where the parameters are saved from the start menu and every range is written as
+ * {@code name=from:to:step}, e.g. {@code plantGrowingAmount=0:20:5}. Options:
+ * <ul>
+ *     <li>{@code --random <samples>} - draws the given amount of points instead of the grid,</li>
+ *     <li>{@code --stop-on-extinction} - stops runs in which all animals died,</li>
+ *     <li>{@code --stable <tolerance> <steps>} - stops runs whose population is stable for the given steps,</li>
+ *     <li>{@code --workers <amount>} - the amount of worker threads, all cores by default.</li>
+ * </ul>
+ */
+public final class SweepLauncher {
+    private static final String USAGE = "Usage: <parameters.json> <results.csv> <seedsPerPoint> <steps> "
+            + "<name=from:to:step>... [--random <samples>] [--stop-on-extinction] "
+            + "[--stable <tolerance> <steps>] [--workers <amount>]";
+
+    private SweepLauncher() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 5) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        try {
+            SimulationParameters base = SimulationParameters.createFromJson(new File(args[0]));
+            Options options = Options.parse(args, 4);
+            ParameterSweep sweep = new ParameterSweep(base, options.ranges, options.design, options.samples,
+                    Integer.parseInt(args[2]), Integer.parseInt(args[3]), options.stopCondition());
+            ForkJoinPool pool = new ForkJoinPool(options.workers);
+            try (Writer writer = new FileWriter(args[1])) {
+                sweep.run(pool, new SweepCsvWriter(writer));
+            } finally {
+                pool.shutdown();
+            }
+        } catch (UserFriendlyException e) {
+            System.err.println(e.getHeader() + ": " + e.getMessage());
+            System.exit(1);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("Error while writing sweep results: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Ranges and options following the fixed arguments of the command line.
+     */
+    static final class Options {
+        final List<ParameterRange> ranges = new ArrayList<>();
+        SweepDesign design = SweepDesign.GRID;
+        int samples = 0;
+        boolean stopOnExtinction = false;
+        double tolerance = 0;
+        int stabilisationSteps = 0;
+        int workers = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * Parses ranges and options.
+         *
+         * @param args  the arguments of the command line.
+         * @param first the index of the first range.
+         * @return the parsed options.
+         * @throws IllegalArgumentException if an argument is invalid or there are no ranges.
+         */
+        static Options parse(String[] args, int first) {
+            Options options = new Options();
+            for (int i = first; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--random" -> {
+                        options.design = SweepDesign.RANDOM;
+                        options.samples = Integer.parseInt(value(args, ++i));
+                    }
+                    case "--stop-on-extinction" -> options.stopOnExtinction = true;
+                    case "--stable" -> {
+                        options.tolerance = Double.parseDouble(value(args, ++i));
+                        options.stabilisationSteps = Integer.parseInt(value(args, ++i));
+                    }
+                    case "--workers" -> options.workers = Integer.parseInt(value(args, ++i));
+                    default -> options.ranges.add(ParameterRange.parse(args[i]));
+                }
+            }
+            if (options.ranges.isEmpty())
+                throw new IllegalArgumentException("At least one range must be given!");
+            if (options.workers < 1)
+                throw new IllegalArgumentException("Workers must be greater than 0!");
+            return options;
+        }
+
+        /**
+         * @return the stop condition of the options.
+         */
+        StopCondition stopCondition() {
+            return new StopCondition(stopOnExtinction, tolerance, stabilisationSteps);
+        }
+
+        private static String value(String[] args, int i) {
+            if (i >= args.length)
+                throw new IllegalArgumentException("Option " + args[i - 1] + " requires a value!");
+            return args[i];
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package agh.darwinworld.sweep;
+
+/**
+ * All possible ways a run of a sweep can end.
+ */
+public enum SweepOutcome {
+    /**
+     * The run executed all its steps.
+     */
+    COMPLETED,
+
+    /**
+     * The run was stopped early, as all animals died.
+     */
+    EXTINCT,
+
+    /**
+     * The run was stopped early, as the amount of animals stabilised.
+     */
+    STABLE,
+
+    /**
+     * The run was not started, as values of the point make the parameters invalid.
+     */
+    INVALID
+}
@@ -0,0 +1,107 @@
+package agh.darwinworld.sweep;
+
+import agh.darwinworld.models.SimulationParameters;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Values of the swept parameters of one point of a sweep. Parameters are
+ * replaced by name through the components of the {@link SimulationParameters} record,
+ * so every integer field can be swept without changes in this class.
+ */
+public final class SweepPoint {
+    /**
+     * Name of the seed component, which is set by the run instead of the point.
+     */
+    static final String SEED = "seed";
+    private static final RecordComponent[] COMPONENTS = SimulationParameters.class.getRecordComponents();
+    private static final Constructor<SimulationParameters> CONSTRUCTOR = canonicalConstructor();
+
+    private final Map<String, Integer> values;
+
+    /**
+     * Creates a point with the given values.
+     *
+     * @param values values of the parameters by the names of the record components.
+     * @throws IllegalArgumentException if the values contain the seed.
+     */
+    public SweepPoint(Map<String, Integer> values) {
+        if (values.containsKey(SEED))
+            throw new IllegalArgumentException("Seed cannot be a value of a point, it is set by every run!");
+        this.values = Collections.unmodifiableMap(new LinkedHashMap<>(values));
+    }
+
+    /**
+     * @return values of the parameters by the names of the record components, in the order of ranges.
+     */
+    public Map<String, Integer> getValues() {
+        return values;
+    }
+
+    /**
+     * Creates parameters with values of this point and the other values and the given seed.
+     *
+     * @param base the parameters providing values which are not swept.
+     * @param seed the seed for randomization.
+     * @return parameters of the point.
+     * @throws IllegalArgumentException if the values of the point make the parameters invalid.
+     */
+    public SimulationParameters apply(SimulationParameters base, int seed) {
+        Object[] arguments = new Object[COMPONENTS.length];
+        try {
+            for (int i = 0; i < COMPONENTS.length; i++) {
+                String name = COMPONENTS[i].getName();
+                if (name.equals(SEED)) arguments[i] = seed;
+                else if (values.containsKey(name)) arguments[i] = values.get(name);
+                else arguments[i] = COMPONENTS[i].getAccessor().invoke(base);
+            }
+            return CONSTRUCTOR.newInstance(arguments);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof IllegalArgumentException cause) throw cause;
+            throw new IllegalStateException("Failed to create simulation parameters: " + e.getCause(), e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create simulation parameters: " + e, e);
+        }
+    }
+
+    /**
+     * @param name the name of the record component.
+     * @return true if the component exists and holds an integer, false otherwise.
+     */
+    static boolean isIntParameter(String name) {
+        return Arrays.stream(COMPONENTS).anyMatch(c -> c.getName().equals(name) && c.getType() == int.class);
+    }
+
+    /**
+     * Finds the constructor of the record taking all its components.
+     */
+    private static Constructor<SimulationParameters> canonicalConstructor() {
+        Class<?>[] types = Arrays.stream(COMPONENTS).map(RecordComponent::getType).toArray(Class<?>[]::new);
+        try {
+            return SimulationParameters.class.getDeclaredConstructor(types);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Simulation parameters have no canonical constructor!", e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof SweepPoint other && values.equals(other.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return values.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return values.toString();
+    }
+}
@@ -0,0 +1,17 @@
+package agh.darwinworld.sweep;
+
+/**
+ * Result of one run of a sweep.
+ *
+ * @param point           the values of the swept parameters.
+ * @param seed            the seed of the run.
+ * @param outcome         the way the run ended.
+ * @param steps           the amount of executed steps.
+ * @param animalCount     the amount of animals after the last step.
+ * @param plantCount      the amount of plants after the last step.
+ * @param averageEnergy   the average energy of animals after the last step.
+ * @param averageLifetime the average lifetime of dead animals after the last step.
+ */
+public record SweepResult(SweepPoint point, int seed, SweepOutcome outcome, int steps, int animalCount,
+                          int plantCount, int averageEnergy, int averageLifetime) {
+}
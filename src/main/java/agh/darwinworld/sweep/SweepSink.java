@@ -0,0 +1,15 @@
+package agh.darwinworld.sweep;
+
+/**
+ * Receives results of a sweep as soon as runs end.
+ */
+@FunctionalInterface
+public interface SweepSink {
+    /**
+     * Called once for every run, in the order in which runs end. Calls are never
+     * concurrent, but they may come from different threads.
+     *
+     * @param result the result of the run.
+     */
+    void acceptResult(SweepResult result);
+}
@@ -0,0 +1,115 @@
+package agh.darwinworld;
+
+import agh.darwinworld.models.SimulationParameters;
+import agh.darwinworld.models.Vector2D;
+import agh.darwinworld.models.animals.AnimalType;
+import agh.darwinworld.models.maps.MapType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulationTest {
+    private Simulation simulation;
+    private Thread thread;
+    private final List<Integer> executedSteps = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        SimulationParameters params = new SimulationParameters(10, 10, 20, 5, 5,
+                10, 10, 8, 5, 1,
+                2, 8, 5, 5, 50, 0, MapType.WORLD,
+                AnimalType.ANIMAL);
+        simulation = new Simulation(params);
+        simulation.setInstrumentation((step, durationNanos) -> {
+            assertTrue(durationNanos >= 0);
+            executedSteps.add(step);
+        });
+        thread = new Thread(simulation);
+        thread.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        thread.interrupt();
+        thread.join(1000);
+        assertFalse(thread.isAlive());
+    }
+
+    @Test
+    void testBatchRunsRequestedSteps() throws InterruptedException {
+        simulation.startBatch(25);
+        simulation.awaitStopped();
+        assertFalse(simulation.isRunning());
+        assertEquals(26, simulation.getStep());
+        assertEquals(25, executedSteps.size());
+        assertEquals(1, executedSteps.get(0));
+        assertEquals(SimulationMode.FIXED_RATE, simulation.getMode());
+        assertThrows(IllegalArgumentException.class, () -> simulation.startBatch(0));
+        assertThrows(IllegalArgumentException.class, () -> simulation.setMode(SimulationMode.BATCH));
+    }
+
+    @Test
+    void testStoppedSimulationParksThread() throws InterruptedException {
+        Thread.sleep(50);
+        assertEquals(Thread.State.WAITING, thread.getState());
+        assertTrue(executedSteps.isEmpty());
+    }
+
+    @Test
+    void testStepIsRejectedWhileLoopRuns() throws InterruptedException {
+        Thread.sleep(50);
+        assertThrows(IllegalStateException.class, () -> simulation.step());
+        assertThrows(IllegalStateException.class, () -> simulation.run());
+        assertEquals(1, simulation.getStep());
+        thread.interrupt();
+        thread.join(1000);
+        simulation.step();
+        assertEquals(2, simulation.getStep());
+    }
+
+    @Test
+    void testMapIsReadBetweenSteps() throws InterruptedException {
+        simulation.setMode(SimulationMode.MAX_SPEED);
+        simulation.start();
+        for (int i = 0; i < 20; i++) {
+            simulation.readMap(map -> {
+                int amount = 0;
+                for (int x = 0; x < 10; x++) {
+                    for (int y = 0; y < 10; y++) {
+                        Vector2D position = new Vector2D(x, y);
+                        assertEquals(map.getAnimalAmountOnPosition(position), map.getAnimalsOnPosition(position).size());
+                        amount += map.getAnimalAmountOnPosition(position);
+                    }
+                }
+                assertEquals(map.animalCount(), amount);
+                return amount;
+            });
+            Thread.sleep(5);
+        }
+        simulation.stop();
+    }
+
+    @Test
+    void testFixedRateIsPaced() throws InterruptedException {
+        simulation.start();
+        Thread.sleep(300);
+        simulation.stop();
+        assertTrue(executedSteps.size() <= 8, "Expected at most 8 steps, got " + executedSteps.size());
+        assertFalse(executedSteps.isEmpty());
+    }
+
+    @Test
+    void testMaxSpeedIsNotPaced() throws InterruptedException {
+        simulation.setMode(SimulationMode.MAX_SPEED);
+        simulation.start();
+        Thread.sleep(300);
+        simulation.stop();
+        assertTrue(executedSteps.size() > 20, "Expected more than 20 steps, got " + executedSteps.size());
+    }
+}
@@ -0,0 +1,105 @@
+package agh.darwinworld.ensemble;
+
+import agh.darwinworld.Simulation;
+import agh.darwinworld.models.SimulationParameters;
+import agh.darwinworld.models.animals.AnimalType;
+import agh.darwinworld.models.maps.MapType;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EnsembleRunnerTest {
+    private final SimulationParameters params = new SimulationParameters(10, 10, 20, 5, 5,
+            10, 10, 8, 5, 1,
+            2, 8, 5, 5, 10, 0, MapType.FIRE,
+            AnimalType.ANIMAL);
+
+    @Test
+    void testStepsAreAggregatedAcrossSeeds() throws InterruptedException {
+        List<EnsembleStep> received = new ArrayList<>();
+        new EnsembleRunner(params, 100, 6, 8, 3).run(received::add);
+        assertEquals(9, received.size());
+        for (int step = 0; step <= 8; step++) {
+            EnsembleStep ensembleStep = received.get(step);
+            assertEquals(step, ensembleStep.getStep());
+            double sum = 0;
+            for (int seed = 100; seed < 106; seed++) {
+                Simulation simulation = new Simulation(params.withSeed(seed));
+                for (int i = 0; i < step; i++) simulation.step();
+                sum += simulation.getMap().animalCount();
+            }
+            RunningStatistics animals = ensembleStep.getStatistics(EnsembleMetric.ANIMAL_COUNT);
+            assertEquals(6, animals.getCount());
+            assertEquals(sum / 6, animals.getMean(), 1e-9);
+        }
+    }
+
+    @Test
+    void testQuantilesAreRepeatable() throws InterruptedException {
+        List<EnsembleStep> first = new ArrayList<>();
+        List<EnsembleStep> second = new ArrayList<>();
+        new EnsembleRunner(params, 100, 7, 8, 3).run(first::add);
+        new EnsembleRunner(params, 100, 7, 8, 3).run(second::add);
+        assertEquals(first.size(), second.size());
+        for (int step = 0; step < first.size(); step++) {
+            for (EnsembleMetric metric : EnsembleMetric.values()) {
+                RunningStatistics expected = first.get(step).getStatistics(metric);
+                RunningStatistics actual = second.get(step).getStatistics(metric);
+                for (int i = 0; i < expected.getQuantileCount(); i++) {
+                    assertEquals(expected.getQuantile(i), actual.getQuantile(i),
+                            "Quantile " + i + " of " + metric + " differs in step " + step + ".");
+                }
+            }
+        }
+    }
+
+    @Test
+    void testWindowDoesNotChangeStatistics() throws InterruptedException {
+        List<EnsembleStep> wide = new ArrayList<>();
+        List<EnsembleStep> narrow = new ArrayList<>();
+        new EnsembleRunner(params, 100, 5, 12, 4).run(wide::add);
+        EnsembleRunner runner = new EnsembleRunner(params, 100, 5, 12, 4);
+        runner.setWindow(1);
+        runner.run(narrow::add);
+        assertEquals(13, narrow.size());
+        for (int step = 0; step <= 12; step++) {
+            assertEquals(step, narrow.get(step).getStep());
+            for (EnsembleMetric metric : EnsembleMetric.values()) {
+                RunningStatistics expected = wide.get(step).getStatistics(metric);
+                RunningStatistics actual = narrow.get(step).getStatistics(metric);
+                assertEquals(expected.getMean(), actual.getMean());
+                assertEquals(expected.getQuantile(1), actual.getQuantile(1));
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> runner.setWindow(0));
+    }
+
+    @Test
+    void testFailingSinkStopsRun() {
+        EnsembleRunner runner = new EnsembleRunner(params, 0, 3, 20, 2);
+        assertThrows(RuntimeException.class, () -> runner.run(step -> {
+            if (step.getStep() == 2) throw new IllegalStateException("Sink failed");
+        }));
+    }
+
+    @Test
+    void testCsvWriter() throws InterruptedException {
+        StringWriter writer = new StringWriter();
+        new EnsembleRunner(params, 0, 2, 1, 2, 0.5).run(new EnsembleCsvWriter(writer));
+        String[] lines = writer.toString().split("\n");
+        assertEquals("step,metric,count,mean,variance,min,max,p50", lines[0]);
+        assertEquals(1 + 2 * EnsembleMetric.values().length, lines.length);
+        assertTrue(lines[1].startsWith("0,animalCount,2,10,0,10,10,10"));
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new EnsembleRunner(params, 0, 0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new EnsembleRunner(params, 0, 1, -1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new EnsembleRunner(params, 0, 1, 1, 0));
+    }
+}
@@ -0,0 +1,56 @@
+package agh.darwinworld.ensemble;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RunningStatisticsTest {
+    @Test
+    void testMeanAndVariance() {
+        RunningStatistics statistics = new RunningStatistics();
+        for (double value : new double[]{2, 4, 4, 4, 5, 5, 7, 9}) {
+            statistics.add(value);
+        }
+        assertEquals(8, statistics.getCount());
+        assertEquals(5, statistics.getMean(), 1e-12);
+        assertEquals(32.0 / 7, statistics.getVariance(), 1e-12);
+        assertEquals(2, statistics.getMin());
+        assertEquals(9, statistics.getMax());
+    }
+
+    @Test
+    void testEmptyStatistics() {
+        RunningStatistics statistics = new RunningStatistics(0.5);
+        assertEquals(0, statistics.getCount());
+        assertEquals(0, statistics.getVariance());
+        assertTrue(Double.isNaN(statistics.getMin()));
+        assertTrue(Double.isNaN(statistics.getQuantile(0)));
+    }
+
+    @Test
+    void testFewValuesGiveExactQuantiles() {
+        RunningStatistics statistics = new RunningStatistics(0, 0.5, 1);
+        statistics.add(3);
+        statistics.add(1);
+        statistics.add(2);
+        assertEquals(1, statistics.getQuantile(0));
+        assertEquals(2, statistics.getQuantile(1));
+        assertEquals(3, statistics.getQuantile(2));
+    }
+
+    @Test
+    void testQuantilesOfUniformValues() {
+        RunningStatistics statistics = new RunningStatistics(0.1, 0.5, 0.9);
+        Random random = new Random(0);
+        for (int i = 0; i < 100_000; i++) {
+            statistics.add(random.nextDouble() * 100);
+        }
+        assertEquals(10, statistics.getQuantile(0), 1);
+        assertEquals(50, statistics.getQuantile(1), 1);
+        assertEquals(90, statistics.getQuantile(2), 1);
+        assertEquals(0.9, statistics.getQuantileProbability(2));
+        assertThrows(IllegalArgumentException.class, () -> new RunningStatistics(1.5));
+    }
+}
@@ -0,0 +1,77 @@
+package agh.darwinworld.models;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CounterRandomTest {
+    @Test
+    public void testSameSeedGivesSameSequence() {
+        CounterRandom first = new CounterRandom(42);
+        CounterRandom second = new CounterRandom(42);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(first.nextInt(), second.nextInt());
+        }
+        assertNotEquals(new CounterRandom(1).nextLong(), new CounterRandom(2).nextLong());
+    }
+
+    @Test
+    public void testKeyedDrawsDoNotDependOnState() {
+        CounterRandom first = new CounterRandom(7);
+        CounterRandom second = new CounterRandom(7);
+        for (int i = 0; i < 10; i++) second.nextInt();
+        assertEquals(first.nextInt(RandomPurpose.SKIP_MOVE, 3, 11, 100),
+                second.nextInt(RandomPurpose.SKIP_MOVE, 3, 11, 100));
+        assertEquals(first.split(RandomPurpose.BREED, 3, 11).nextLong(),
+                second.split(RandomPurpose.BREED, 3, 11).nextLong());
+        assertEquals(first.nextInt(), new CounterRandom(7).nextInt(), "Keyed draws should not advance the generator.");
+    }
+
+    @Test
+    public void testKeysGiveDifferentStreams() {
+        CounterRandom random = new CounterRandom(7);
+        long base = random.split(RandomPurpose.BREED, 3, 11).nextLong();
+        assertNotEquals(base, random.split(RandomPurpose.SPAWN, 3, 11).nextLong());
+        assertNotEquals(base, random.split(RandomPurpose.BREED, 4, 11).nextLong());
+        assertNotEquals(base, random.split(RandomPurpose.BREED, 3, 12).nextLong());
+        assertNotEquals(base, random.split(RandomPurpose.BREED, 11, 3).nextLong());
+    }
+
+    @Test
+    public void testSetSeedResetsKeyedDraws() {
+        CounterRandom random = new CounterRandom(7);
+        random.nextLong();
+        random.setSeed(3);
+        CounterRandom expected = new CounterRandom(3);
+        assertEquals(3, random.getKey());
+        assertEquals(expected.nextLong(), random.nextLong());
+        assertEquals(expected.nextInt(RandomPurpose.BREED, 4, 5), random.nextInt(RandomPurpose.BREED, 4, 5));
+        assertEquals(expected.split(RandomPurpose.SPAWN, 0, 1).nextLong(),
+                random.split(RandomPurpose.SPAWN, 0, 1).nextLong());
+    }
+
+    @Test
+    public void testVariantsGiveDifferentStreams() {
+        CounterRandom random = new CounterRandom(7);
+        int different = 0;
+        for (int id = 0; id < 100; id++) {
+            int roll = random.nextInt(RandomPurpose.SKIP_MOVE, 1, 5, id, 1 << 30);
+            assertEquals(roll, random.nextInt(RandomPurpose.SKIP_MOVE, 1, 5, id, 1 << 30));
+            if (roll != random.nextInt(RandomPurpose.SKIP_MOVE, 2, 5, id, 1 << 30)) different++;
+        }
+        assertTrue(different > 90, "Variants should have independent streams.");
+    }
+
+    @Test
+    public void testBoundedDrawsAreUniform() {
+        CounterRandom random = new CounterRandom(0);
+        int[] counts = new int[10];
+        for (int id = 0; id < 100_000; id++) {
+            counts[random.nextInt(RandomPurpose.SKIP_MOVE, 1, id, 10)]++;
+        }
+        for (int count : counts) {
+            assertTrue(Math.abs(count - 10_000) < 500, "Expected about 10000 draws of each value, got " + count);
+        }
+        assertThrows(IllegalArgumentException.class, () -> random.nextInt(RandomPurpose.SKIP_MOVE, 1, 1, 0));
+    }
+}
@@ -231,6 +231,48 @@ public class SimulationParametersTest {
         }
     }
 
+    @Test
+    public void testRetainedGenerationsSavedToJson() {
+        try {
+            SimulationParameters params = new SimulationParameters(
+                    50, 50, 10,
+                    5, 10, 20,
+                    100, 50, 20,
+                    0, 8, 8,
+                    5, 3, 30,
+                    12345, MapType.WORLD, AnimalType.ANIMAL, 3
+            );
+            File tempFile = File.createTempFile("params", ".json");
+            tempFile.deleteOnExit();
+            params.saveToJson(tempFile.getAbsolutePath());
+            assertEquals(3, SimulationParameters.createFromJson(tempFile).retainedGenerations());
+        } catch (IOException | UserFriendlyException e) {
+            fail("Exception occurred: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testRetainedGenerationsDefaultAndValidation() {
+        SimulationParameters params = new SimulationParameters(
+                50, 50, 10,
+                5, 10, 20,
+                100, 50, 20,
+                0, 8, 8,
+                5, 3, 30,
+                12345, MapType.WORLD, AnimalType.ANIMAL
+        );
+        assertEquals(SimulationParameters.DEFAULT_RETAINED_GENERATIONS, params.retainedGenerations());
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> new SimulationParameters(
+                50, 50, 10,
+                5, 10, 20,
+                100, 50, 20,
+                0, 8, 8,
+                5, 3, 30,
+                12345, MapType.WORLD, AnimalType.ANIMAL, -1
+        ));
+        assertTrue(exception.getMessage().contains("Retained generations must be greater than or equal to 0."));
+    }
+
     private IntField createIntField(int value) {
         IntField field = new IntField();
         field.setValue(value);
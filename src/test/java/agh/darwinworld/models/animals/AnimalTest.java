@@ -3,11 +3,14 @@ package agh.darwinworld.models.animals;
 import agh.darwinworld.models.MapDirection;
 import agh.darwinworld.models.Vector2D;
 import agh.darwinworld.models.listeners.AnimalListener;
+import agh.darwinworld.models.listeners.GridMovementHandler;
 import agh.darwinworld.models.listeners.MovementHandler;
 import javafx.util.Pair;
 import org.junit.jupiter.api.*;
 
 import java.beans.PropertyChangeEvent;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -160,6 +163,29 @@ public class AnimalTest {
         assertEquals(1, animal.getAge(), "Animal's age should increase by 1 after moving.");
     }
 
+    @Test
+    void testPackedMoveUpdatesState() {
+        Animal animal = new Animal(random, 1, 10);
+        GridMovementHandler handler = new GridMovementHandler() {
+            @Override
+            public int move(int cell, int direction) {
+                return GridMovementHandler.pack(cell + 1, MapDirection.WEST.ordinal());
+            }
+
+            @Override
+            public Vector2D positionOf(int cell) {
+                return new Vector2D(cell, 0);
+            }
+        };
+
+        int newCell = animal.move(handler, 4, 0);
+
+        assertEquals(5, newCell, "Animal should move to the cell returned by the handler.");
+        assertEquals(MapDirection.WEST, animal.getDirection(), "Animal's direction should update correctly.");
+        assertEquals(9, animal.getEnergy(), "Animal's energy should decrease by 1 after moving.");
+        assertEquals(1, animal.getAge(), "Animal's age should increase by 1 after moving.");
+    }
+
     @Test
     void testEnergyDepletionOnMove() {
         final int baseEnergy = 10;
@@ -192,6 +218,20 @@ public class AnimalTest {
         assertTrue(listener.propertyChanged, "Listener should be notified of property changes.");
     }
 
+    @Test
+    void testListenerReceivesOnlySubscribedProperties() {
+        Animal animal = new Animal(random, 5, 10);
+        ArrayList<String> events = new ArrayList<>();
+        animal.addListener(evt -> events.add(evt.getPropertyName()), AnimalProperty.AGE);
+
+        animal.eat(5, 1);
+        animal.move(Pair::new, new Vector2D(0, 0), 1);
+
+        assertEquals(List.of("age"), events, "Listener should be notified only about the age.");
+        assertTrue(animal.isObserved(AnimalProperty.AGE));
+        assertFalse(animal.isObserved(AnimalProperty.ENERGY));
+    }
+
     static class TestAnimalListener implements AnimalListener {
         boolean propertyChanged = false;
 
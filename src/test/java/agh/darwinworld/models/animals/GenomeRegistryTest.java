@@ -0,0 +1,70 @@
+package agh.darwinworld.models.animals;
+
+import agh.darwinworld.models.MoveDirection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GenomeRegistryTest {
+    private GenomeRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new GenomeRegistry();
+    }
+
+    @Test
+    void testEqualGenomesShareId() {
+        int first = registry.acquire(Genome.of(MoveDirection.LEFT, MoveDirection.RIGHT));
+        int second = registry.acquire(Genome.of(MoveDirection.LEFT, MoveDirection.RIGHT));
+        int other = registry.acquire(Genome.of(MoveDirection.RIGHT, MoveDirection.LEFT));
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+        assertEquals(2, registry.getCount(first));
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    void testMostPopular() {
+        assertEquals(-1, registry.getMostPopular());
+        int a = registry.acquire(Genome.of(MoveDirection.FORWARD));
+        int b = registry.acquire(Genome.of(MoveDirection.BACKWARD));
+        registry.acquire(Genome.of(MoveDirection.BACKWARD));
+        assertEquals(b, registry.getMostPopular());
+        assertEquals(2, registry.getMaxCount());
+        registry.release(b);
+        registry.release(b);
+        assertEquals(a, registry.getMostPopular());
+        assertEquals(1, registry.getMaxCount());
+        registry.release(a);
+        assertEquals(-1, registry.getMostPopular());
+        assertEquals(0, registry.size());
+        assertThrows(IllegalArgumentException.class, () -> registry.release(a));
+    }
+
+    @Test
+    void testReleasedIdIsReused() {
+        int a = registry.acquire(Genome.of(MoveDirection.FORWARD));
+        registry.release(a);
+        int b = registry.acquire(Genome.of(MoveDirection.LEFT));
+        assertEquals(a, b);
+        assertEquals(Genome.of(MoveDirection.LEFT), registry.get(b));
+    }
+
+    @Test
+    void testTop() {
+        MoveDirection[] directions = MoveDirection.values();
+        for (int i = 0; i < directions.length; i++) {
+            for (int j = 0; j <= i; j++) registry.acquire(Genome.of(directions[i]));
+        }
+        List<Integer> top = registry.getTop(3);
+        assertEquals(3, top.size());
+        assertEquals(Genome.of(directions[7]), registry.get(top.get(0)));
+        assertEquals(Genome.of(directions[6]), registry.get(top.get(1)));
+        assertEquals(Genome.of(directions[5]), registry.get(top.get(2)));
+        assertEquals(8, registry.getTop(20).size());
+    }
+}
@@ -0,0 +1,83 @@
+package agh.darwinworld.models.animals;
+
+import agh.darwinworld.models.MoveDirection;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GenomeTest {
+    private static MoveDirection[] genes(int length, int offset) {
+        MoveDirection[] values = MoveDirection.values();
+        MoveDirection[] genes = new MoveDirection[length];
+        for (int i = 0; i < length; i++) genes[i] = values[(i + offset) % values.length];
+        return genes;
+    }
+
+    @Test
+    void testPackingAcrossWords() {
+        MoveDirection[] genes = genes(50, 3);
+        Genome genome = Genome.of(genes);
+        assertEquals(50, genome.length());
+        assertArrayEquals(genes, genome.toArray());
+        assertEquals(genes[21], genome.get(21));
+        assertTrue(genome.matches(genes));
+        assertFalse(genome.matches(genes(50, 4)));
+        assertFalse(genome.matches(null));
+    }
+
+    @Test
+    void testRandomGenome() {
+        Genome genome = Genome.random(new Random(1), 30);
+        assertEquals(30, genome.length());
+        assertThrows(IllegalArgumentException.class, () -> Genome.random(new Random(), -1));
+    }
+
+    @Test
+    void testEqualsAndHashCode() {
+        Genome first = Genome.of(genes(25, 1));
+        Genome second = Genome.of(genes(25, 1));
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertNotEquals(first, Genome.of(genes(24, 1)));
+    }
+
+    @Test
+    void testCrossoverMommyLeft() {
+        MoveDirection[] mommy = genes(47, 0);
+        MoveDirection[] daddy = genes(47, 5);
+        Genome child = Genome.crossover(Genome.of(mommy), Genome.of(daddy), 30, true);
+        for (int i = 0; i < 30; i++) assertEquals(mommy[i], child.get(i));
+        for (int i = 30; i < 47; i++) assertEquals(daddy[i], child.get(i));
+    }
+
+    @Test
+    void testCrossoverMommyRight() {
+        MoveDirection[] mommy = genes(47, 0);
+        MoveDirection[] daddy = genes(47, 5);
+        Genome child = Genome.crossover(Genome.of(mommy), Genome.of(daddy), 12, false);
+        for (int i = 0; i < 12; i++) assertEquals(mommy[35 + i], child.get(i));
+        for (int i = 12; i < 47; i++) assertEquals(daddy[i - 12], child.get(i));
+    }
+
+    @Test
+    void testCrossoverWithDifferentLengths() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Genome.crossover(Genome.of(genes(5, 0)), Genome.of(genes(6, 0)), 2, true));
+    }
+
+    @Test
+    void testMutate() {
+        Genome genome = Genome.of(genes(40, 0));
+        int[] scratch = new int[40];
+        assertSame(genome, genome.mutate(new Random(0), 0, 0, scratch));
+        Genome mutated = genome.mutate(new Random(0), 5, 5, scratch);
+        int changed = 0;
+        for (int i = 0; i < 40; i++) {
+            if (genome.get(i) != mutated.get(i)) changed++;
+        }
+        assertTrue(changed <= 5, "At most five genes should change.");
+        assertThrows(IllegalArgumentException.class, () -> genome.mutate(new Random(), 3, 2, scratch));
+    }
+}
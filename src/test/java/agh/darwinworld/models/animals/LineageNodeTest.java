@@ -0,0 +1,198 @@
+package agh.darwinworld.models.animals;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LineageNodeTest {
+    private Population population;
+
+    @BeforeEach
+    void setUp() {
+        population = new Population(new Random(0), 4, 1);
+    }
+
+    @Test
+    void testCommonAncestorIsCountedOnce() {
+        int grandma = population.spawn(AnimalType.ANIMAL, 100);
+        int grandpa = population.spawn(AnimalType.ANIMAL, 100);
+        int mommy = population.breed(AnimalType.ANIMAL, grandma, grandpa, 1, 0, 0, 0, 0);
+        int daddy = population.breed(AnimalType.ANIMAL, grandma, grandpa, 1, 0, 0, 0, 0);
+        int child = population.breed(AnimalType.ANIMAL, mommy, daddy, 1, 0, 0, 0, 0);
+        assertEquals(3, population.getDescendantsAmount(grandma));
+        assertEquals(3, population.getDescendantsAmount(grandpa));
+        assertEquals(1, population.getDescendantsAmount(mommy));
+        assertEquals(0, population.getDescendantsAmount(child));
+        assertEquals(8, population.getTotalDescendants());
+    }
+
+    @Test
+    void testLinksToUntrackedAncestorsAreCut() {
+        int mommy = population.spawn(AnimalType.ANIMAL, 100);
+        int daddy = population.spawn(AnimalType.ANIMAL, 100);
+        int child = population.breed(AnimalType.ANIMAL, mommy, daddy, 1, 0, 0, 0, 0);
+        LineageNode childNode = population.getLineage(child);
+        assertSame(population.getLineage(mommy), childNode.getMommy());
+        population.release(mommy);
+        population.release(daddy);
+        int other = population.spawn(AnimalType.ANIMAL, 100);
+        population.breed(AnimalType.ANIMAL, child, other, 1, 0, 0, 0, 0);
+        assertNull(childNode.getMommy(), "Link to a released ancestor should be cut.");
+        assertNull(childNode.getDaddy(), "Link to a released ancestor should be cut.");
+        assertEquals(1, childNode.getDescendants());
+    }
+
+    @Test
+    void testReleasedViewKeepsCountingDescendants() {
+        int mommy = population.spawn(AnimalType.ANIMAL, 100);
+        int daddy = population.spawn(AnimalType.ANIMAL, 100);
+        Animal view = population.getAnimal(mommy);
+        view.addListener(evt -> {}, AnimalProperty.DESCENDANTS_AMOUNT);
+        int child = population.breed(AnimalType.ANIMAL, mommy, daddy, 1, 0, 0, 0, 0);
+        population.release(mommy);
+        population.release(daddy);
+        int other = population.spawn(AnimalType.ANIMAL, 100);
+        population.breed(AnimalType.ANIMAL, child, other, 1, 0, 0, 0, 0);
+        assertEquals(2, view.getDescendantsAmount());
+        assertNotNull(population.getLineage(child).getMommy(), "Link to an observed ancestor should be kept.");
+        assertNull(population.getLineage(child).getDaddy());
+    }
+
+    @Test
+    void testUnobservedReleasedViewIsCollapsed() {
+        int mommy = population.spawn(AnimalType.ANIMAL, 100);
+        int daddy = population.spawn(AnimalType.ANIMAL, 100);
+        Animal view = population.getAnimal(mommy);
+        int child = population.breed(AnimalType.ANIMAL, mommy, daddy, 1, 0, 0, 0, 0);
+        population.release(mommy);
+        int other = population.spawn(AnimalType.ANIMAL, 100);
+        population.breed(AnimalType.ANIMAL, child, other, 1, 0, 0, 0, 0);
+        population.breed(AnimalType.ANIMAL, child, other, 1, 0, 0, 0, 0);
+        assertEquals(2, view.getDescendantsAmount(), "Collapsed ancestor should keep its last count.");
+        assertNull(population.getLineage(child).getMommy());
+        assertNotNull(population.getLineage(child).getDaddy());
+    }
+
+    @Test
+    void testRetainedGenerationsKeepDeadAncestors() {
+        population.setRetainedGenerations(2);
+        int grandma = population.spawn(AnimalType.ANIMAL, 100);
+        int grandpa = population.spawn(AnimalType.ANIMAL, 100);
+        int mommy = population.breed(AnimalType.ANIMAL, grandma, grandpa, 1, 0, 0, 0, 0);
+        int daddy = population.spawn(AnimalType.ANIMAL, 100);
+        population.release(grandma);
+        population.release(grandpa);
+        int child = population.breed(AnimalType.ANIMAL, mommy, daddy, 1, 0, 0, 0, 0);
+        LineageNode mommyNode = population.getLineage(mommy);
+        assertEquals(2, population.getLineage(child).getGeneration());
+        assertNotNull(mommyNode.getMommy(), "Grandparents are within retained generations.");
+        assertEquals(2, mommyNode.getMommy().getDescendants());
+        int other = population.spawn(AnimalType.ANIMAL, 100);
+        population.breed(AnimalType.ANIMAL, child, other, 1, 0, 0, 0, 0);
+        assertNull(mommyNode.getMommy(), "Great-grandparents are not within retained generations.");
+        assertThrows(IllegalArgumentException.class, () -> population.setRetainedGenerations(-1));
+    }
+
+    /**
+     * Breeds a chain of generations, each with a new spawned partner, and releases
+     * all ancestors of the last offspring. The last offspring breeds once more,
+     * so the lineage is walked after all its ancestors are released.
+     *
+     * @return the slot of the offspring of the last offspring.
+     */
+    private int breedReleasedChain(int first, int generations) {
+        int parent = first;
+        for (int i = 0; i < generations; i++) {
+            int other = population.spawn(AnimalType.ANIMAL, 100);
+            int child = population.breed(AnimalType.ANIMAL, parent, other, 1, 0, 0, 0, 0);
+            population.release(parent);
+            population.release(other);
+            parent = child;
+        }
+        return population.breed(AnimalType.ANIMAL, parent, population.spawn(AnimalType.ANIMAL, 100), 1, 0, 0, 0, 0);
+    }
+
+    @Test
+    void testAncestorsBeyondRetainedGenerationsAreUnlinked() {
+        for (int retained : new int[]{0, 1, 3}) {
+            population = new Population(new Random(0), 4, 1);
+            population.setRetainedGenerations(retained);
+            int newest = breedReleasedChain(population.spawn(AnimalType.ANIMAL, 100), 6);
+            LineageNode node = population.getLineage(newest).getMommy();
+            assertNotNull(node, "Living parent should always be linked.");
+            for (int generation = 5; generation >= 7 - retained; generation--) {
+                assertNotNull(node.getMommy(), "Generation " + generation + " is within " + retained + " generations.");
+                node = node.getMommy();
+                assertEquals(generation, node.getGeneration());
+                assertNull(node.getDaddy(), "Spawned partners are beyond " + retained + " generations.");
+            }
+            assertNull(node.getMommy(), "Ancestors beyond " + retained + " generations should be unlinked.");
+            assertNull(node.getDaddy());
+        }
+    }
+
+    @Test
+    void testCollapsedAncestorsAreCollected() throws InterruptedException {
+        int first = population.spawn(AnimalType.ANIMAL, 100);
+        WeakReference<LineageNode> ancestor = new WeakReference<>(population.getLineage(first));
+        int newest = breedReleasedChain(first, 6);
+        for (int i = 0; i < 20 && ancestor.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(ancestor.get(), "Collapsed ancestor should not be reachable.");
+        assertNotNull(population.getLineage(newest).getMommy());
+    }
+
+    @Test
+    void testSelectedAncestorStaysLinked() {
+        int first = population.spawn(AnimalType.ANIMAL, 100);
+        int other = population.spawn(AnimalType.ANIMAL, 100);
+        int selected = population.breed(AnimalType.ANIMAL, first, other, 1, 0, 0, 0, 0);
+        population.release(first);
+        population.release(other);
+        Animal view = population.getAnimal(selected);
+        view.addListener(evt -> {}, AnimalProperty.DESCENDANTS_AMOUNT);
+        LineageNode selectedNode = population.getLineage(selected);
+        int newest = breedReleasedChain(selected, 5);
+        LineageNode node = population.getLineage(newest);
+        for (int generation = 7; generation > 1; generation--) {
+            assertEquals(generation, node.getGeneration());
+            node = node.getMommy();
+            assertNotNull(node, "Path to the selected ancestor should be kept.");
+        }
+        assertSame(selectedNode, node);
+        assertNull(node.getMommy(), "Unselected ancestors of the selected animal should be unlinked.");
+        assertEquals(6, view.getDescendantsAmount());
+    }
+
+    @Test
+    void testDeepLineageDoesNotOverflowStack() throws InterruptedException {
+        population.setRetainedGenerations(Integer.MAX_VALUE);
+        int ancestor = population.spawn(AnimalType.ANIMAL, 100);
+        int[] parent = {ancestor};
+        Throwable[] failure = new Throwable[1];
+        Thread thread = new Thread(null, () -> {
+            try {
+                for (int i = 0; i < 5_000; i++) {
+                    int other = population.spawn(AnimalType.ANIMAL, 100);
+                    int child = population.breed(AnimalType.ANIMAL, parent[0], other, 1, 0, 0, 0, 0);
+                    if (parent[0] != ancestor) population.release(parent[0]);
+                    population.release(other);
+                    parent[0] = child;
+                }
+            } catch (Throwable e) {
+                failure[0] = e;
+            }
+        }, "lineage", 128 * 1024);
+        thread.start();
+        thread.join();
+        assertNull(failure[0], "Walk over ancestors should not depend on the stack size.");
+        assertEquals(5_000, population.getDescendantsAmount(ancestor));
+        assertEquals(5_000, population.getLineage(parent[0]).getGeneration());
+    }
+}
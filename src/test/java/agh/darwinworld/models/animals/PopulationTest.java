@@ -0,0 +1,148 @@
+package agh.darwinworld.models.animals;
+
+import agh.darwinworld.models.MapDirection;
+import agh.darwinworld.models.Vector2D;
+import agh.darwinworld.models.listeners.GridMovementHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PopulationTest {
+    private Population population;
+
+    @BeforeEach
+    void setUp() {
+        population = new Population(new Random(0), 4, 1);
+    }
+
+    @Test
+    void testSpawnAndGrow() {
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, population.spawn(AnimalType.ANIMAL, i));
+        }
+        assertEquals(10, population.size());
+        assertEquals(7, population.getEnergy(7));
+        assertEquals(4, population.getGenome(3).length());
+        assertEquals(-1, population.getDiedAt(3));
+        assertThrows(IllegalArgumentException.class, () -> population.spawn(AnimalType.ANIMAL, -1));
+    }
+
+    @Test
+    void testReleasedSlotIsReused() {
+        int first = population.spawn(AnimalType.ANIMAL, 10);
+        int second = population.spawn(AnimalType.AGEING_ANIMAL, 10);
+        population.release(first);
+        assertFalse(population.isOccupied(first));
+        assertEquals(1, population.size());
+        int third = population.spawn(AnimalType.ANIMAL, 3);
+        assertEquals(first, third);
+        assertEquals(3, population.getEnergy(third));
+        assertEquals(0, population.getAge(third));
+        assertTrue(population.isOccupied(second));
+    }
+
+    @Test
+    void testViewsAreLazyAndCached() {
+        int slot = population.spawn(AnimalType.AGEING_ANIMAL, 10);
+        Animal animal = population.getAnimal(slot);
+        assertInstanceOf(AgeingAnimal.class, animal);
+        assertSame(animal, population.getAnimal(slot));
+        population.eat(slot, 5, 0);
+        assertEquals(15, animal.getEnergy());
+        assertEquals(1, animal.getTotalEatenPlants());
+    }
+
+    @Test
+    void testReleasedViewKeepsState() {
+        int slot = population.spawn(AnimalType.ANIMAL, 10);
+        Animal animal = population.getAnimal(slot);
+        population.kill(slot, 4);
+        population.release(slot);
+        population.spawn(AnimalType.ANIMAL, 20);
+        assertTrue(animal.isDead());
+        assertEquals(4, animal.diedAt());
+        assertNotSame(animal, population.getAnimal(slot));
+    }
+
+    @Test
+    void testReleasedViewsShareArchive() {
+        int first = population.spawn(AnimalType.ANIMAL, 10);
+        int second = population.spawn(AnimalType.AGEING_ANIMAL, 20);
+        Animal firstView = population.getAnimal(first);
+        Animal secondView = population.getAnimal(second);
+        long firstId = firstView.getId();
+        population.kill(first, 3);
+        population.release(first);
+        population.release(second);
+        population.spawn(AnimalType.ANIMAL, 30);
+        population.spawn(AnimalType.ANIMAL, 40);
+        assertEquals(firstId, firstView.getId());
+        assertEquals(3, firstView.diedAt());
+        assertEquals(20, secondView.getEnergy());
+        assertInstanceOf(AgeingAnimal.class, secondView);
+        assertEquals(2, population.size());
+    }
+
+    @Test
+    void testMoveUpdatesState() {
+        int slot = population.spawn(AnimalType.ANIMAL, 10);
+        GridMovementHandler handler = new GridMovementHandler() {
+            @Override
+            public int move(int cell, int direction) {
+                return GridMovementHandler.pack(cell + 1, MapDirection.SOUTH.ordinal());
+            }
+
+            @Override
+            public Vector2D positionOf(int cell) {
+                return new Vector2D(cell, 0);
+            }
+        };
+        assertEquals(3, population.move(slot, handler, 2, 0));
+        assertEquals(MapDirection.SOUTH, population.getDirection(slot));
+        assertEquals(9, population.getEnergy(slot));
+        assertEquals(1, population.getAge(slot));
+    }
+
+    @Test
+    void testBreedLinksParents() {
+        int mommy = population.spawn(AnimalType.ANIMAL, 20);
+        int daddy = population.spawn(AnimalType.ANIMAL, 20);
+        int child = population.breed(AnimalType.AGEING_ANIMAL, mommy, daddy, 5, 10, 0, 0, 0);
+        assertEquals(15, population.getEnergy(mommy));
+        assertEquals(15, population.getEnergy(daddy));
+        assertEquals(10, population.getEnergy(child));
+        assertEquals(AnimalType.AGEING_ANIMAL, population.getType(child));
+        assertEquals(1, population.getChildrenAmount(mommy));
+        assertEquals(1, population.getDescendantsAmount(daddy));
+        assertThrows(IllegalArgumentException.class,
+                () -> population.breed(AnimalType.ANIMAL, mommy, daddy, 5, 16, 0, 0, 0));
+    }
+
+    @Test
+    void testEnergyListener() {
+        int slot = population.spawn(AnimalType.ANIMAL, 10);
+        int[] delta = {0};
+        population.setEnergyListener((changed, oldEnergy, newEnergy) -> delta[0] += newEnergy - oldEnergy);
+        population.eat(slot, 4, 0);
+        population.kill(slot, 1);
+        assertEquals(-11, delta[0]);
+        assertEquals(-1, population.getTotalEnergy());
+    }
+
+    @Test
+    void testSequentialIds() {
+        int first = population.spawn(AnimalType.ANIMAL, 10);
+        int second = population.spawn(AnimalType.ANIMAL, 10);
+        assertEquals(0, population.getId(first));
+        assertEquals(1, population.getId(second));
+        Animal animal = population.getAnimal(first);
+        population.release(first);
+        assertEquals(0, animal.getId(), "Released animal should keep its id.");
+        int third = population.spawn(AnimalType.ANIMAL, 10);
+        assertEquals(first, third);
+        assertEquals(2, population.getId(third), "Reused slot should get a new id.");
+    }
+}
@@ -0,0 +1,59 @@
+package agh.darwinworld.models.maps;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CellIndexTest {
+    private CellIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CellIndex(10);
+    }
+
+    @Test
+    void testAddAndRemove() {
+        assertTrue(index.add(3));
+        assertFalse(index.add(3));
+        assertTrue(index.add(7));
+        assertEquals(2, index.size());
+        assertTrue(index.contains(3));
+        assertTrue(index.remove(3));
+        assertFalse(index.remove(3));
+        assertFalse(index.contains(3));
+        assertTrue(index.contains(7));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void testRemoveRandomDrawsWithoutReplacement() {
+        for (int i = 0; i < 10; i++) index.add(i);
+        Random random = new Random(0);
+        Set<Integer> drawn = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(drawn.add(index.removeRandom(random)), "Cell should not be drawn twice.");
+        }
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void testGetAfterSwapRemove() {
+        index.add(1);
+        index.add(4);
+        index.add(6);
+        index.remove(1);
+        assertEquals(6, index.get(0));
+        assertEquals(4, index.get(1));
+    }
+
+    @Test
+    void testRemoveRandomFromEmptyIndex() {
+        assertThrows(IllegalStateException.class, () -> index.removeRandom(new Random()));
+    }
+}
@@ -1,14 +1,18 @@
 package agh.darwinworld.models.maps;
 
+import agh.darwinworld.models.FireChangeSet;
 import agh.darwinworld.models.MapDirection;
 import agh.darwinworld.models.MoveDirection;
 import agh.darwinworld.models.SimulationParameters;
 import agh.darwinworld.models.Vector2D;
 import agh.darwinworld.models.animals.AnimalType;
+import agh.darwinworld.models.listeners.GridMovementHandler;
+import agh.darwinworld.models.listeners.SimulationStepListener;
 import javafx.util.Pair;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -50,14 +54,16 @@ public class FireMapTest {
     @Test
     void testGetAnimalsOnPosition() {
         fireMap.populateAnimals(1);
-        Vector2D position = fireMap.animals.keySet().iterator().next();
+        int cell = 0;
+        while (fireMap.grid.firstAnimal(cell) < 0) cell++;
+        Vector2D position = fireMap.grid.positionOf(cell);
         assertEquals(1, fireMap.getAnimalsOnPosition(position).size());
     }
 
     @Test
     void testIsPlantOnPosition() {
         Vector2D plantPosition = new Vector2D(5, 5);
-        fireMap.plants.add(plantPosition);
+        fireMap.addPlant(fireMap.grid.indexOf(plantPosition));
         assertTrue(fireMap.isPlantOnPosition(plantPosition));
     }
 
@@ -69,8 +75,8 @@ public class FireMapTest {
 
     @Test
     void testPlantCount() {
-        fireMap.plants.add(new Vector2D(1, 1));
-        fireMap.plants.add(new Vector2D(2, 2));
+        fireMap.addPlant(fireMap.grid.indexOf(new Vector2D(1, 1)));
+        fireMap.addPlant(fireMap.grid.indexOf(new Vector2D(2, 2)));
         assertEquals(2, fireMap.plantCount());
     }
 
@@ -124,7 +130,11 @@ public class FireMapTest {
     @Test
     void testRemoveDeadAnimals() {
         fireMap.populateAnimals(10);
-        fireMap.animals.values().stream().flatMap(List::stream).forEach(animal -> animal.forceKill(1));
+        for (int cell = 0; cell < fireMap.grid.getCellCount(); cell++) {
+            for (int slot = fireMap.grid.firstAnimal(cell); slot >= 0; slot = fireMap.grid.nextAnimal(slot)) {
+                fireMap.population.kill(slot, 1);
+            }
+        }
         fireMap.removeDeadAnimals();
         assertEquals(0, fireMap.animalCount());
     }
@@ -154,31 +164,125 @@ public class FireMapTest {
         fireMap.step(fireMap.params.fireInterval()+1);
         fireMap.step(fireMap.params.fireInterval()+2);
         fireMap.step(fireMap.params.fireInterval()+3);
-        assertEquals(63, fireMap.plantCount());
+        assertEquals(62, fireMap.plantCount());
     }
 
     @Test
     void testFireKillsAnimals() {
         fireMap.populateAnimals(10);
         fireMap.growPlants(1000);
-        fireMap.step(fireMap.params.fireInterval());
-        fireMap.step(fireMap.params.fireInterval()+1);
-        fireMap.step(fireMap.params.fireInterval()+2);
-        fireMap.step(fireMap.params.fireInterval()+3);
-        fireMap.step(fireMap.params.fireInterval()+4);
-        fireMap.step(fireMap.params.fireInterval()+5);
-        fireMap.step(fireMap.params.fireInterval()+6);
-        fireMap.step(fireMap.params.fireInterval()+7);
-        fireMap.step(fireMap.params.fireInterval()+8);
-        fireMap.step(fireMap.params.fireInterval()+9);
-        fireMap.step(fireMap.params.fireInterval()+10);
-        fireMap.step(fireMap.params.fireInterval()+11);
-        fireMap.step(fireMap.params.fireInterval()+12);
-        fireMap.step(fireMap.params.fireInterval()+13);
-        fireMap.step(fireMap.params.fireInterval()+14);
+        for (int i = 0; i < 40; i++) {
+            fireMap.step(fireMap.params.fireInterval() + i);
+        }
         assertEquals(0, fireMap.animalCount());
     }
 
+    @Test
+    void testFireSpreadsAndBurnsOut() {
+        int cell = fireMap.grid.indexOf(5, 5);
+        fireMap.addPlant(cell);
+        fireMap.ignite(cell, 0);
+        assertTrue(fireMap.isFireAtPosition(new Vector2D(5, 5)));
+        fireMap.propagateFire(1);
+        assertFalse(fireMap.isPlantOnPosition(new Vector2D(5, 5)));
+        assertTrue(fireMap.isFireAtPosition(new Vector2D(5, 6)));
+        assertTrue(fireMap.isFireAtPosition(new Vector2D(6, 5)));
+        assertTrue(fireMap.isFireAtPosition(new Vector2D(5, 4)));
+        assertTrue(fireMap.isFireAtPosition(new Vector2D(4, 5)));
+        assertFalse(fireMap.isFireAtPosition(new Vector2D(6, 6)));
+        assertFalse(fireMap.isFireAtPosition(new Vector2D(-1, 5)));
+        for (int step = 2; step <= params.fireLength() + 1; step++) {
+            fireMap.propagateFire(step);
+        }
+        assertFalse(fireMap.isFireAtPosition(new Vector2D(5, 5)));
+        assertTrue(fireMap.isFireAtPosition(new Vector2D(5, 6)));
+        fireMap.propagateFire(params.fireLength() + 2);
+        assertFalse(fireMap.isFireAtPosition(new Vector2D(5, 6)));
+    }
+
+    private List<FireChangeSet> listenToFires() {
+        List<FireChangeSet> batches = new ArrayList<>();
+        fireMap.addStepListener(new SimulationStepListener() {
+            @Override
+            public void updateStatistics(int step, int animalCount, int plantCount, int emptyFieldCount,
+                                         Pair<MoveDirection[], Integer> popularGenome, int averageLifetime,
+                                         int averageDescendantsAmount, int averageEnergy) {
+            }
+
+            @Override
+            public void updateFires(FireChangeSet changes) {
+                batches.add(changes);
+            }
+        });
+        return batches;
+    }
+
+    @Test
+    void testFireChangesAreBatched() {
+        List<FireChangeSet> batches = listenToFires();
+        int cell = fireMap.grid.indexOf(5, 5);
+        fireMap.addPlant(cell);
+        fireMap.ignite(cell, 0);
+        fireMap.propagateFire(1);
+        fireMap.propagateFire(2);
+        assertEquals(2, batches.size());
+        assertEquals(1, batches.get(0).getStep());
+        assertEquals(1, batches.get(0).size());
+        assertEquals(new Vector2D(5, 5), batches.get(0).getPosition(0));
+        assertEquals(params.fireLength(), batches.get(0).getLength(0));
+        assertEquals(params.fireLength() + 1, batches.get(0).getFireEnd(0));
+        assertEquals(4, batches.get(1).size());
+        for (int step = 3; step <= params.fireLength() + 2; step++) {
+            fireMap.propagateFire(step);
+        }
+        assertEquals(params.fireLength() + 2, batches.size(), "Every step with fire should be reported.");
+        assertEquals(0, batches.get(2).size(), "Unchanged burning cells should not be listed.");
+        assertEquals(1, batches.get(params.fireLength()).size());
+        FireChangeSet last = batches.getLast();
+        assertEquals(4, last.size());
+        for (int i = 0; i < last.size(); i++) {
+            assertEquals(0, last.getLength(i));
+        }
+        fireMap.propagateFire(params.fireLength() + 3);
+        assertEquals(params.fireLength() + 2, batches.size(), "Nothing burns, so nothing should be reported.");
+    }
+
+    @Test
+    void testReportedFireStageDecreases() {
+        List<FireChangeSet> batches = listenToFires();
+        Vector2D position = new Vector2D(5, 5);
+        fireMap.ignite(fireMap.grid.indexOf(position), 0);
+        int fireEnd = -1;
+        int previousStage = Integer.MAX_VALUE;
+        for (int step = 1; step <= params.fireLength() + 1; step++) {
+            fireMap.propagateFire(step);
+            FireChangeSet changes = batches.getLast();
+            assertEquals(step, changes.getStep());
+            for (int i = 0; i < changes.size(); i++) {
+                if (changes.getPosition(i).equals(position)) fireEnd = changes.getFireEnd(i);
+            }
+            int stage = Math.max(fireEnd - step, 0);
+            assertTrue(stage < previousStage, "Stage of the fire should go down in step " + step + ".");
+            previousStage = stage;
+        }
+        assertEquals(0, previousStage);
+        assertEquals(params.fireLength() + 1, batches.size());
+    }
+
+    @Test
+    void testAnimalEnteringFireDies() {
+        int cell = fireMap.grid.indexOf(5, 5);
+        fireMap.ignite(cell, 0);
+        fireMap.propagateFire(1);
+        fireMap.placeAnimal(cell, fireMap.population.spawn(AnimalType.ANIMAL, 10));
+        fireMap.addPlant(cell);
+        assertEquals(1, fireMap.animalCount());
+        fireMap.propagateFire(2);
+        assertEquals(0, fireMap.animalCount());
+        assertFalse(fireMap.isPlantOnPosition(new Vector2D(5, 5)));
+        assertTrue(fireMap.isFireAtPosition(new Vector2D(4, 5)), "Plant grown on fire should spread it.");
+    }
+
     @Test
     void testMove() {
         Vector2D position = new Vector2D(5, 5);
@@ -202,4 +306,23 @@ public class FireMapTest {
         assertEquals(MapDirection.EAST, newPosition4.getValue());
     }
 
+    @Test
+    void testPackedMove() {
+        int cell = fireMap.grid.indexOf(0, 0);
+        int move = fireMap.move(cell, MapDirection.SOUTHWEST.ordinal());
+        assertEquals(cell, GridMovementHandler.cellOf(move));
+        assertEquals(MapDirection.SOUTHWEST.ordinal(), GridMovementHandler.directionOf(move));
+
+        int innerMove = fireMap.move(fireMap.grid.indexOf(5, 5), MapDirection.NORTHEAST.ordinal());
+        assertEquals(fireMap.grid.indexOf(6, 6), GridMovementHandler.cellOf(innerMove));
+    }
+
+    @Test
+    void testTransitionTableMatchesComputedMoves() {
+        for (int cell = 0; cell < fireMap.grid.getCellCount(); cell++) {
+            for (MapDirection direction : MapDirection.values()) {
+                assertEquals(fireMap.computeMove(cell, direction.ordinal()), fireMap.move(cell, direction.ordinal()));
+            }
+        }
+    }
 }
@@ -0,0 +1,125 @@
+package agh.darwinworld.models.maps;
+
+import agh.darwinworld.models.Vector2D;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GridStorageTest {
+    private GridStorage grid;
+
+    @BeforeEach
+    void setUp() {
+        grid = new GridStorage(4, 3);
+    }
+
+    @Test
+    void testInvalidDimensions() {
+        assertThrows(IllegalArgumentException.class, () -> new GridStorage(0, 3));
+        assertThrows(IllegalArgumentException.class, () -> new GridStorage(4, -1));
+    }
+
+    @Test
+    void testIndexing() {
+        assertEquals(12, grid.getCellCount());
+        assertEquals(0, grid.indexOf(0, 0));
+        assertEquals(6, grid.indexOf(new Vector2D(2, 1)));
+        assertEquals(new Vector2D(3, 2), grid.positionOf(11));
+        assertSame(grid.positionOf(5), grid.positionOf(5), "Positions should be cached.");
+    }
+
+    @Test
+    void testContains() {
+        assertTrue(grid.contains(new Vector2D(3, 2)));
+        assertFalse(grid.contains(new Vector2D(4, 2)));
+        assertFalse(grid.contains(new Vector2D(0, -1)));
+    }
+
+    @Test
+    void testAddAndRemoveAnimals() {
+        grid.addAnimal(5, 0);
+        grid.addAnimal(5, 7);
+        assertEquals(2, grid.getAnimalAmount(5));
+        assertEquals(2, grid.getAnimalCount());
+        assertEquals(0, grid.firstAnimal(5));
+        assertEquals(1, grid.getOccupiedCellCount());
+        assertEquals(5, grid.cellOf(7));
+        assertThrows(IllegalArgumentException.class, () -> grid.addAnimal(6, 7));
+        assertEquals(5, grid.removeAnimal(0));
+        assertEquals(-1, grid.removeAnimal(0));
+        assertEquals(1, grid.getAnimalCount());
+        assertEquals(7, grid.firstAnimal(5));
+        grid.removeAnimal(7);
+        assertEquals(0, grid.getAnimalCount());
+        assertEquals(0, grid.getOccupiedCellCount());
+        assertEquals(-1, grid.firstAnimal(7));
+    }
+
+    @Test
+    void testCellKeepsInsertionOrder() {
+        grid.addAnimal(2, 3);
+        grid.addAnimal(2, 1);
+        grid.addAnimal(2, 4);
+        grid.moveAnimal(1, 9);
+        grid.moveAnimal(1, 2);
+        assertEquals(3, grid.firstAnimal(2));
+        assertEquals(4, grid.nextAnimal(3));
+        assertEquals(1, grid.nextAnimal(4));
+        assertEquals(-1, grid.nextAnimal(1));
+        assertEquals(0, grid.getAnimalAmount(9));
+        assertEquals(3, grid.getAnimalAmount(2));
+    }
+
+    @Test
+    void testPlants() {
+        assertTrue(grid.setPlant(3, true));
+        assertFalse(grid.setPlant(3, true));
+        assertTrue(grid.setPlant(8, true));
+        assertEquals(2, grid.getPlantCount());
+        assertEquals(3, grid.getPlant(0));
+        assertEquals(8, grid.getPlant(1));
+        assertTrue(grid.setPlant(3, false));
+        assertEquals(1, grid.getPlantCount());
+        assertFalse(grid.hasPlant(3));
+        assertEquals(8, grid.getPlant(0));
+        assertEquals(8, grid.randomPlant(new Random(0)));
+        grid.setPlant(8, false);
+        assertThrows(IllegalStateException.class, () -> grid.randomPlant(new Random(0)));
+    }
+
+    @Test
+    void testEmptyCellCount() {
+        assertEquals(12, grid.getEmptyCellCount());
+        grid.addAnimal(2, 0);
+        grid.addAnimal(2, 1);
+        grid.setPlant(2, true);
+        grid.setPlant(3, true);
+        assertEquals(1, grid.getOccupiedCellCount());
+        assertEquals(10, grid.getEmptyCellCount());
+        grid.removeAnimal(0);
+        grid.removeAnimal(1);
+        assertEquals(10, grid.getEmptyCellCount());
+        grid.setPlant(2, false);
+        assertEquals(11, grid.getEmptyCellCount());
+    }
+
+    @Test
+    void testMaxAnimalAmount() {
+        assertEquals(0, grid.getMaxAnimalAmount());
+        for (int slot = 0; slot < 6; slot++) grid.addAnimal(1, slot);
+        grid.addAnimal(4, 6);
+        grid.addAnimal(4, 7);
+        assertEquals(6, grid.getMaxAnimalAmount());
+        for (int slot = 0; slot < 5; slot++) grid.moveAnimal(slot, 8);
+        assertEquals(5, grid.getMaxAnimalAmount());
+        for (int slot = 0; slot < 5; slot++) grid.removeAnimal(slot);
+        assertEquals(2, grid.getMaxAnimalAmount());
+        grid.removeAnimal(5);
+        grid.removeAnimal(6);
+        grid.removeAnimal(7);
+        assertEquals(0, grid.getMaxAnimalAmount());
+    }
+}
@@ -0,0 +1,84 @@
+package agh.darwinworld.models.maps;
+
+import agh.darwinworld.models.Vector2D;
+import agh.darwinworld.models.animals.AnimalType;
+import agh.darwinworld.models.animals.Population;
+import agh.darwinworld.models.listeners.GridMovementHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParentSelectorTest {
+    private GridStorage grid;
+    private Population population;
+    private ParentSelector selector;
+
+    @BeforeEach
+    void setUp() {
+        grid = new GridStorage(3, 3);
+        population = new Population(new Random(0), 3);
+        selector = new ParentSelector();
+    }
+
+    private int place(int energy) {
+        int slot = population.spawn(AnimalType.ANIMAL, energy);
+        grid.addAnimal(4, slot);
+        return slot;
+    }
+
+    @Test
+    void testSingleAnimal() {
+        place(10);
+        assertFalse(selector.select(grid, population, 0, 4));
+    }
+
+    @Test
+    void testSelectsHighestEnergy() {
+        place(3);
+        int best = place(20);
+        place(7);
+        int second = place(15);
+        assertTrue(selector.select(grid, population, 0, 4));
+        assertEquals(best, selector.getFirst());
+        assertEquals(second, selector.getSecond());
+    }
+
+    @Test
+    void testAgeBreaksEnergyTie() {
+        int older = place(10);
+        population.eat(older, 1, 0);
+        population.move(older, new GridMovementHandler() {
+            @Override
+            public int move(int cell, int direction) {
+                return GridMovementHandler.pack(cell, direction);
+            }
+
+            @Override
+            public Vector2D positionOf(int cell) {
+                return grid.positionOf(cell);
+            }
+        }, 4, 0);
+        int younger = place(10);
+        place(2);
+        assertTrue(selector.select(grid, population, 0, 4));
+        assertEquals(younger, selector.getFirst());
+        assertEquals(older, selector.getSecond());
+    }
+
+    @Test
+    void testTieBreakDoesNotDependOnOrder() {
+        int first = place(10);
+        int second = place(10);
+        assertTrue(selector.select(grid, population, 3, 4));
+        int winner = selector.getFirst();
+        grid.removeAnimal(first);
+        grid.removeAnimal(second);
+        grid.addAnimal(4, second);
+        grid.addAnimal(4, first);
+        assertTrue(selector.select(grid, population, 3, 4));
+        assertEquals(winner, selector.getFirst());
+    }
+}
@@ -4,12 +4,15 @@ import agh.darwinworld.models.MapDirection;
 import agh.darwinworld.models.MoveDirection;
 import agh.darwinworld.models.SimulationParameters;
 import agh.darwinworld.models.Vector2D;
+import agh.darwinworld.models.animals.Animal;
 import agh.darwinworld.models.animals.AnimalType;
+import agh.darwinworld.models.listeners.GridMovementHandler;
 import javafx.util.Pair;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -41,14 +44,16 @@ public class WorldMapTest {
     @Test
     void testGetAnimalsOnPosition() {
         worldMap.populateAnimals(1);
-        Vector2D position = worldMap.animals.keySet().iterator().next();
+        int cell = 0;
+        while (worldMap.grid.firstAnimal(cell) < 0) cell++;
+        Vector2D position = worldMap.grid.positionOf(cell);
         assertEquals(1, worldMap.getAnimalsOnPosition(position).size());
     }
 
     @Test
     void testIsPlantOnPosition() {
         Vector2D plantPosition = new Vector2D(5, 5);
-        worldMap.plants.add(plantPosition);
+        worldMap.addPlant(worldMap.grid.indexOf(plantPosition));
         assertTrue(worldMap.isPlantOnPosition(plantPosition));
     }
 
@@ -60,8 +65,8 @@ public class WorldMapTest {
 
     @Test
     void testPlantCount() {
-        worldMap.plants.add(new Vector2D(1, 1));
-        worldMap.plants.add(new Vector2D(2, 2));
+        worldMap.addPlant(worldMap.grid.indexOf(new Vector2D(1, 1)));
+        worldMap.addPlant(worldMap.grid.indexOf(new Vector2D(2, 2)));
         assertEquals(2, worldMap.plantCount());
     }
 
@@ -89,6 +94,49 @@ public class WorldMapTest {
         assertTrue(result.getValue() > 0);
     }
 
+    @Test
+    void testPopularGenomeFollowsDeaths() {
+        worldMap.populateAnimals(10);
+        for (int i = 1; i <= 30; i++) worldMap.step(i);
+        int total = 0;
+        for (Pair<MoveDirection[], Integer> genome : worldMap.topGenomes(Integer.MAX_VALUE)) {
+            total += genome.getValue();
+        }
+        assertEquals(worldMap.animalCount(), total);
+        Pair<MoveDirection[], Integer> popular = worldMap.popularGenome();
+        if (total > 0) assertEquals(worldMap.topGenomes(1).getFirst().getValue(), popular.getValue());
+        else assertNull(popular.getKey());
+    }
+
+    @Test
+    void testStatisticsMatchScan() {
+        worldMap.populateAnimals(20);
+        for (int i = 1; i <= 40; i++) {
+            worldMap.step(i);
+            int emptyFields = 0;
+            long energy = 0;
+            long descendants = 0;
+            for (int x = 0; x < params.width(); x++) {
+                for (int y = 0; y < params.height(); y++) {
+                    Vector2D position = new Vector2D(x, y);
+                    List<Animal> animals = worldMap.getAnimalsOnPosition(position);
+                    if (animals.isEmpty() && !worldMap.isPlantOnPosition(position)) emptyFields++;
+                    long cellEnergy = 0;
+                    for (Animal animal : animals) {
+                        cellEnergy += animal.getEnergy();
+                        descendants += animal.getDescendantsAmount();
+                    }
+                    energy += cellEnergy;
+                    assertEquals(animals.isEmpty() ? 0 : cellEnergy / animals.size(), worldMap.getEnergyOnPosition(position));
+                }
+            }
+            int animalCount = worldMap.animalCount();
+            assertEquals(emptyFields, worldMap.emptyFieldCount());
+            assertEquals(animalCount == 0 ? 0 : energy / animalCount, worldMap.averageEnergy());
+            assertEquals(animalCount == 0 ? 0 : descendants / animalCount, worldMap.averageDescendantsAmount());
+        }
+    }
+
     @Test
     void testAverageLifetime() {
         assertEquals(0, worldMap.averageLifetime());
@@ -112,10 +160,34 @@ public class WorldMapTest {
         assertEquals(10, worldMap.plantCount());
     }
 
+    @Test
+    void testGrowPlantsPrefersEquator() {
+        worldMap.growPlants(10);
+        int preferredPlants = 0;
+        for (int x = 0; x < params.width(); x++) {
+            for (int y = 0; y < params.height(); y++) {
+                if (worldMap.isPreferredRow(y) && worldMap.isPlantOnPosition(new Vector2D(x, y))) preferredPlants++;
+            }
+        }
+        assertEquals(8, preferredPlants);
+    }
+
+    @Test
+    void testGrowPlantsWhenRegionIsFull() {
+        worldMap.growPlants(1000);
+        assertEquals(params.width() * params.height(), worldMap.plantCount());
+        worldMap.growPlants(10);
+        assertEquals(params.width() * params.height(), worldMap.plantCount());
+    }
+
     @Test
     void testRemoveDeadAnimals() {
         worldMap.populateAnimals(10);
-        worldMap.animals.values().stream().flatMap(List::stream).forEach(animal -> animal.forceKill(1));
+        for (int cell = 0; cell < worldMap.grid.getCellCount(); cell++) {
+            for (int slot = worldMap.grid.firstAnimal(cell); slot >= 0; slot = worldMap.grid.nextAnimal(slot)) {
+                worldMap.population.kill(slot, 1);
+            }
+        }
         worldMap.removeDeadAnimals();
         assertEquals(0, worldMap.animalCount());
     }
@@ -158,4 +230,58 @@ public class WorldMapTest {
         assertEquals(new Vector2D(0, 5), newPosition4.getKey());
         assertEquals(MapDirection.EAST, newPosition4.getValue());
     }
+
+    @Test
+    void testPackedMove() {
+        int cell = worldMap.grid.indexOf(9, 5);
+        int move = worldMap.move(cell, MapDirection.EAST.ordinal());
+        assertEquals(worldMap.grid.indexOf(0, 5), GridMovementHandler.cellOf(move));
+        assertEquals(MapDirection.EAST.ordinal(), GridMovementHandler.directionOf(move));
+
+        int poleCell = worldMap.grid.indexOf(3, 9);
+        int poleMove = worldMap.move(poleCell, MapDirection.NORTH.ordinal());
+        assertEquals(poleCell, GridMovementHandler.cellOf(poleMove));
+        assertEquals(MapDirection.SOUTH.ordinal(), GridMovementHandler.directionOf(poleMove));
+    }
+
+    @Test
+    void testTransitionTableMatchesComputedMoves() {
+        for (int cell = 0; cell < worldMap.grid.getCellCount(); cell++) {
+            for (MapDirection direction : MapDirection.values()) {
+                assertEquals(worldMap.computeMove(cell, direction.ordinal()), worldMap.move(cell, direction.ordinal()));
+            }
+        }
+    }
+
+    @Test
+    void testParallelStepMatchesSequentialStep() {
+        SimulationParameters bigParams = new SimulationParameters(100, 100, 1000, 500, 5,
+                6000, 20, 8, 5, 1,
+                2, 8, 5, 5, 10, 7, MapType.WORLD,
+                AnimalType.AGEING_ANIMAL);
+        WorldMap sequential = new WorldMap();
+        sequential.setParameters(bigParams);
+        sequential.setStepPool(null);
+        WorldMap parallel = new WorldMap();
+        parallel.setParameters(bigParams);
+        parallel.setStepPool(new ForkJoinPool(4));
+        parallel.parallelStepThreshold = 1;
+        for (WorldMap map : List.of(sequential, parallel)) {
+            map.populateAnimals(bigParams.startingAnimalAmount());
+            map.growPlants(bigParams.startingPlantAmount());
+        }
+        for (int step = 1; step <= 15; step++) {
+            sequential.step(step);
+            parallel.step(step);
+            assertEquals(sequential.animalCount(), parallel.animalCount());
+            assertEquals(sequential.averageEnergy(), parallel.averageEnergy());
+            assertEquals(sequential.plantCount(), parallel.plantCount());
+            assertEquals(sequential.averageDescendantsAmount(), parallel.averageDescendantsAmount());
+            for (int slot = 0; slot < sequential.population.getSlotLimit(); slot++) {
+                assertEquals(sequential.grid.cellOf(slot), parallel.grid.cellOf(slot));
+                if (sequential.population.isOccupied(slot))
+                    assertEquals(sequential.population.getEnergy(slot), parallel.population.getEnergy(slot));
+            }
+        }
+    }
 }
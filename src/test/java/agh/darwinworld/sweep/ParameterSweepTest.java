@@ -0,0 +1,93 @@
+package agh.darwinworld.sweep;
+
+import agh.darwinworld.models.SimulationParameters;
+import agh.darwinworld.models.animals.AnimalType;
+import agh.darwinworld.models.maps.MapType;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParameterSweepTest {
+    private final SimulationParameters base = new SimulationParameters(10, 10, 20, 5, 5,
+            10, 10, 8, 5, 1,
+            2, 8, 5, 5, 10, 0, MapType.WORLD,
+            AnimalType.ANIMAL);
+
+    @Test
+    void testGridDesignExpandsAllCombinations() {
+        ParameterSweep sweep = new ParameterSweep(base, List.of(
+                new ParameterRange("plantGrowingAmount", 0, 10, 5),
+                new ParameterRange("breedingEnergyCost", 4, 5, 1)), 1, 1, StopCondition.NEVER);
+        List<SweepPoint> points = sweep.getPoints();
+        assertEquals(6, points.size());
+        assertEquals(Map.of("plantGrowingAmount", 0, "breedingEnergyCost", 4), points.get(0).getValues());
+        assertEquals(Map.of("plantGrowingAmount", 10, "breedingEnergyCost", 5), points.get(5).getValues());
+        assertEquals(6, new HashSet<>(points).size());
+    }
+
+    @Test
+    void testRandomDesignDrawsValuesFromRanges() {
+        ParameterSweep sweep = new ParameterSweep(base, List.of(new ParameterRange("animalGenomeLength", 2, 20, 2)),
+                SweepDesign.RANDOM, 50, 1, 1, StopCondition.NEVER);
+        assertEquals(50, sweep.getPoints().size());
+        for (SweepPoint point : sweep.getPoints()) {
+            int length = point.getValues().get("animalGenomeLength");
+            assertTrue(length >= 2 && length <= 20 && length % 2 == 0);
+        }
+        assertEquals(sweep.getPoints(), new ParameterSweep(base, List.of(new ParameterRange("animalGenomeLength", 2, 20, 2)),
+                SweepDesign.RANDOM, 50, 1, 1, StopCondition.NEVER).getPoints());
+    }
+
+    @Test
+    void testRunsStopEarly() {
+        ParameterSweep sweep = new ParameterSweep(base, List.of(), 1, 1000, new StopCondition(true, 0, 0));
+        SweepPoint starving = new SweepPoint(Map.of("startingEnergyAmount", 1, "startingPlantAmount", 0,
+                "plantGrowingAmount", 0));
+        SweepResult extinct = sweep.runPoint(starving, 0);
+        assertEquals(SweepOutcome.EXTINCT, extinct.outcome());
+        assertEquals(0, extinct.animalCount());
+        assertTrue(extinct.steps() < 1000);
+
+        ParameterSweep stable = new ParameterSweep(base, List.of(), 1, 1000, new StopCondition(false, 1, 3));
+        SweepResult stabilised = stable.runPoint(stable.getPoints().get(0), 0);
+        assertEquals(SweepOutcome.STABLE, stabilised.outcome());
+        assertEquals(3, stabilised.steps());
+    }
+
+    @Test
+    void testSweepReportsEveryRun() {
+        ParameterSweep sweep = new ParameterSweep(base, List.of(
+                new ParameterRange("breedingEnergyCost", 7, 9, 1)), 2, 5, StopCondition.NEVER);
+        List<SweepResult> results = new ArrayList<>();
+        sweep.run(new ForkJoinPool(3), results::add);
+        assertEquals(6, results.size());
+        Set<String> keys = new HashSet<>();
+        for (SweepResult result : results) {
+            keys.add(result.point() + "/" + result.seed());
+            boolean valid = result.point().getValues().get("breedingEnergyCost") <= 8;
+            assertEquals(valid ? SweepOutcome.COMPLETED : SweepOutcome.INVALID, result.outcome());
+            assertEquals(sweep.runPoint(result.point(), result.seed()), result);
+        }
+        assertEquals(6, keys.size());
+    }
+
+    @Test
+    void testCsvWriter() {
+        StringWriter writer = new StringWriter();
+        ParameterSweep sweep = new ParameterSweep(base, List.of(new ParameterRange("plantEnergyAmount", 3, 3, 1)),
+                1, 2, StopCondition.NEVER);
+        sweep.run(new ForkJoinPool(1), new SweepCsvWriter(writer));
+        String[] lines = writer.toString().split("\n");
+        assertEquals("plantEnergyAmount,seed,outcome,steps,animalCount,plantCount,averageEnergy,averageLifetime", lines[0]);
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].startsWith("3,0,COMPLETED,2,"));
+    }
+}
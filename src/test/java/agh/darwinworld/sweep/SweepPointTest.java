@@ -0,0 +1,74 @@
+package agh.darwinworld.sweep;
+
+import agh.darwinworld.models.SimulationParameters;
+import agh.darwinworld.models.animals.AnimalType;
+import agh.darwinworld.models.maps.MapType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SweepPointTest {
+    private final SimulationParameters base = new SimulationParameters(10, 10, 20, 5, 5,
+            10, 10, 8, 5, 1,
+            2, 8, 5, 5, 10, 0, MapType.WORLD,
+            AnimalType.ANIMAL);
+
+    @Test
+    void testApplyReplacesSweptParameters() {
+        SweepPoint point = new SweepPoint(Map.of("plantGrowingAmount", 7, "animalGenomeLength", 12));
+        SimulationParameters params = point.apply(base, 42);
+        assertEquals(7, params.plantGrowingAmount());
+        assertEquals(12, params.animalGenomeLength());
+        assertEquals(42, params.seed());
+        assertEquals(base.withSeed(42), new SweepPoint(Map.of()).apply(base, 42));
+    }
+
+    @Test
+    void testApplyRejectsInvalidValues() {
+        SweepPoint point = new SweepPoint(Map.of("breedingEnergyCost", 9));
+        assertThrows(IllegalArgumentException.class, () -> point.apply(base, 0));
+    }
+
+    @Test
+    void testRangeAcceptsOnlyIntegerParameters() {
+        ParameterRange range = new ParameterRange("breedingEnergyCost", 1, 8, 3);
+        assertEquals(3, range.size());
+        assertEquals(7, range.get(2));
+        assertThrows(IllegalArgumentException.class, () -> new ParameterRange("mapType", 0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ParameterRange("unknown", 0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ParameterRange("width", 5, 1, 1));
+    }
+
+    @Test
+    void testSeedCannotBeSwept() {
+        assertThrows(IllegalArgumentException.class, () -> new ParameterRange("seed", 0, 10, 1));
+        assertThrows(IllegalArgumentException.class, () -> new SweepPoint(Map.of("seed", 3)));
+    }
+
+    @Test
+    void testParseRange() {
+        assertEquals(new ParameterRange("plantGrowingAmount", 0, 20, 5), ParameterRange.parse("plantGrowingAmount=0:20:5"));
+        assertEquals(new ParameterRange("width", 5, 9, 1), ParameterRange.parse("width=5:9"));
+        assertThrows(IllegalArgumentException.class, () -> ParameterRange.parse("width"));
+        assertThrows(IllegalArgumentException.class, () -> ParameterRange.parse("width=5"));
+        assertThrows(IllegalArgumentException.class, () -> ParameterRange.parse("width=a:9"));
+        assertThrows(IllegalArgumentException.class, () -> ParameterRange.parse("seed=0:9"));
+    }
+
+    @Test
+    void testLauncherOptions() {
+        SweepLauncher.Options options = SweepLauncher.Options.parse(new String[]{"params.json", "out.csv", "2", "10",
+                "width=5:9", "--random", "4", "--stable", "0.1", "20", "--stop-on-extinction", "--workers", "3"}, 4);
+        assertEquals(1, options.ranges.size());
+        assertEquals(SweepDesign.RANDOM, options.design);
+        assertEquals(4, options.samples);
+        assertEquals(new StopCondition(true, 0.1, 20), options.stopCondition());
+        assertEquals(3, options.workers);
+        assertThrows(IllegalArgumentException.class,
+                () -> SweepLauncher.Options.parse(new String[]{"a", "b", "1", "1", "--workers"}, 4));
+        assertThrows(IllegalArgumentException.class,
+                () -> SweepLauncher.Options.parse(new String[]{"a", "b", "1", "1", "--stop-on-extinction"}, 4));
+    }
+}